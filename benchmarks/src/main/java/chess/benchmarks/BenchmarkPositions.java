@@ -0,0 +1,64 @@
+package chess.benchmarks;
+
+import chess.ChessMatch;
+import chess.ChessPosition;
+
+/**
+ * Posições usadas pelos benchmarks, descritas como a sequência de jogadas (notação de coordenadas)
+ * que leva até elas a partir da posição inicial.
+ */
+public final class BenchmarkPositions {
+
+	public static final String OPENING = "e2e4 e7e5 g1f3 b8c6";
+
+	public static final String MIDDLEGAME = "e2e4 e7e5 g1f3 b8c6 f1b5 a7a6 b5a4 g8f6 e1g1 f8e7 f1e1 b7b5 a4b3 d7d6 "
+			+ "c2c3 e8g8 h2h3 c6a5 b3c2 c7c5 d2d4 d8c7 b1d2";
+
+	public static final String ENDGAME = "a2a3 e7e6 e2e4 f8a3 a1a3 h7h6 a3f3 e6e5 f3f7 e8f7 d2d3 d8f6 b1c3 f6f2 e1f2 b8c6 "
+			+ "c1h6 g7h6 d1a1 d7d6 a1a7 c6a7 f2f3 f7g6 c3a4 g8e7 d3d4 e5d4 h2h3 c8h3 g1h3 a7b5 f1b5 a8a4 b5a4 e7g8 "
+			+ "a4b3 g8f6 h1e1 f6e4 b3f7 g6f7 e1e4 b7b6 f3f2 d4d3 c2d3 f7g7 f2e1 b6b5 e1d2 g7f6 d2c1 h8d8 c1b1 d8a8 "
+			+ "e4h4 h6h5 h3f4 a8a4 b1c1 a4f4 c1d1 f6f7 d1c2 f4h4 d3d4 d6d5 g2g4 h5g4 c2c3 g4g3 b2b4 h4d4 c3b2 d4b4";
+
+	public static final String CHECKMATE = "f2f3 e7e5 g2g4 d8h4";
+
+	public static final String STALEMATE = "e2e3 a7a5 d1h5 a8a6 h5a5 h7h5 h2h4 a6h6 a5c7 f7f6 c7d7 e8f7 d7b7 d8d3 "
+			+ "b7b8 d3h7 b8c8 f7g6 c8e6";
+
+	private BenchmarkPositions() {
+	}
+
+	public static String line(String name) {
+		switch (name) {
+			case "OPENING": return OPENING;
+			case "MIDDLEGAME": return MIDDLEGAME;
+			case "ENDGAME": return ENDGAME;
+			case "CHECKMATE": return CHECKMATE;
+			case "STALEMATE": return STALEMATE;
+			default: throw new IllegalArgumentException("Unknown benchmark position: " + name);
+		}
+	}
+
+	public static String[] moves(String name) {
+		return line(name).split(" ");
+	}
+
+	public static ChessMatch match(String name) {
+		return play(new ChessMatch(), moves(name));
+	}
+
+	public static ChessMatch play(ChessMatch chessMatch, String[] moves) {
+		for (String move : moves) {
+			chessMatch.performChessMove(source(move), target(move));
+		}
+		return chessMatch;
+	}
+
+	public static ChessPosition source(String move) {
+		return new ChessPosition(move.charAt(0), move.charAt(1) - '0');
+	}
+
+	public static ChessPosition target(String move) {
+		return new ChessPosition(move.charAt(2), move.charAt(3) - '0');
+	}
+
+}
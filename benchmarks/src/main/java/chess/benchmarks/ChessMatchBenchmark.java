@@ -0,0 +1,87 @@
+package chess.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.ChessPosition;
+
+/**
+ * Operações públicas de {@link ChessMatch} usadas pelas interfaces e pelo cliente da IA.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ChessMatchBenchmark {
+
+	@Param({"OPENING", "MIDDLEGAME", "ENDGAME"})
+	public String position;
+
+	private String[] moves;
+	private ChessMatch chessMatch;
+	private List<ChessPosition> sources;
+
+	@Setup
+	public void setup() {
+		moves = BenchmarkPositions.moves(position);
+		chessMatch = BenchmarkPositions.match(position);
+		sources = new ArrayList<>();
+		ChessPiece[][] pieces = chessMatch.getPieces();
+		for (int row = 0; row < pieces.length; row++) {
+			for (int col = 0; col < pieces[row].length; col++) {
+				if (pieces[row][col] != null && pieces[row][col].getColor() == chessMatch.getCurrentPlayer()) {
+					sources.add(ChessPosition.fromMatrixPosition(col, row));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Cria uma partida e reproduz, via performChessMove, todas as jogadas que levam à posição.
+	 */
+	@Benchmark
+	public ChessMatch performChessMoveLine() {
+		return BenchmarkPositions.play(new ChessMatch(), moves);
+	}
+
+	@Benchmark
+	public void possibleMoves(Blackhole bh) {
+		for (ChessPosition source : sources) {
+			try {
+				bh.consume(chessMatch.possibleMoves(source));
+			}
+			catch (RuntimeException e) {
+				bh.consume(e);
+			}
+		}
+	}
+
+	@Benchmark
+	public String getFen() {
+		return chessMatch.getFen();
+	}
+
+	@Benchmark
+	public ChessPiece[][] getPieces() {
+		return chessMatch.getPieces();
+	}
+
+}
@@ -0,0 +1,62 @@
+package chess.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chess.Bitboard;
+import chess.ChessMatch;
+import chess.MoveGenerator;
+
+/**
+ * Geração de jogadas do lado a jogar e o teste de "há jogadas legais" que decide xeque-mate e afogamento.
+ * As posições CHECKMATE e STALEMATE são o pior caso desse teste: nenhuma jogada é legal.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MoveGenerationBenchmark {
+
+	@Param({"OPENING", "MIDDLEGAME", "ENDGAME", "CHECKMATE", "STALEMATE"})
+	public String position;
+
+	private Bitboard bitboard;
+	private int side;
+	private int[] moves = new int[MoveGenerator.MAX_MOVES];
+
+	@Setup
+	public void setup() {
+		ChessMatch chessMatch = BenchmarkPositions.match(position);
+		bitboard = chessMatch.getBitboard();
+		side = bitboard.getSideToMove();
+	}
+
+	@Benchmark
+	public int pseudoLegalMoves() {
+		return MoveGenerator.generatePseudoLegalMoves(bitboard, side, moves);
+	}
+
+	@Benchmark
+	public int legalMoves() {
+		return MoveGenerator.generateLegalMoves(bitboard, side, moves);
+	}
+
+	@Benchmark
+	public boolean hasLegalMoves() {
+		return MoveGenerator.hasLegalMoves(bitboard, side, moves);
+	}
+
+}
@@ -0,0 +1,83 @@
+package chess.benchmarks;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chess.ChessMatch;
+import chess.MoveGenerator;
+import chess.pgn.PgnValidator;
+import chess.pgn.PgnWriter;
+
+/**
+ * Tempo para validar um arquivo PGN gerado no setup (partidas com jogadas aleatórias, sempre as mesmas)
+ * com 1, 2, 4 e 8 threads. O ganho com N threads é o tempo com 1 thread dividido pelo tempo com N;
+ * como cada partida é repetida em um ChessMatch independente, ele deve ficar perto de N até a quantidade de núcleos.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PgnValidationBenchmark {
+
+	@Param({"1", "2", "4", "8"})
+	public int threads;
+
+	@Param({"20000"})
+	public int games;
+
+	private Path file;
+	private ForkJoinPool pool;
+
+	@Setup
+	public void setup() throws IOException {
+		file = Files.createTempFile("chess-benchmark", ".pgn");
+		Random random = new Random(42);
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			PgnWriter writer = new PgnWriter(out);
+			for (int i = 0; i < games; i++) {
+				ChessMatch chessMatch = new ChessMatch();
+				for (int ply = 0; ply < 80 && !chessMatch.getCheckMate() && !chessMatch.getStalemate(); ply++) {
+					int count = MoveGenerator.generateLegalMoves(chessMatch.getBitboard(), chessMatch.getBitboard().getSideToMove(), moves);
+					chessMatch.performMove(moves[random.nextInt(count)]);
+				}
+				writer.write(chessMatch, Map.of("Event", "Benchmark " + i));
+			}
+		}
+		pool = new ForkJoinPool(threads);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		pool.shutdown();
+		Files.deleteIfExists(file);
+	}
+
+	@Benchmark
+	public long validate() throws IOException {
+		return PgnValidator.validate(file, pool).getGames();
+	}
+
+}
@@ -0,0 +1,62 @@
+package chess.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import chess.ChessMatch;
+import chess.ChessPiece;
+
+/**
+ * possibleMoves() das peças de um tipo (todas delegam ao MoveGenerator), chamado para todas as peças daquele tipo na posição.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PieceMovesBenchmark {
+
+	@Param({"OPENING", "MIDDLEGAME", "ENDGAME"})
+	public String position;
+
+	@Param({"P", "N", "B", "R", "Q", "K"})
+	public String piece;
+
+	private List<ChessPiece> pieces;
+
+	@Setup
+	public void setup() {
+		ChessMatch chessMatch = BenchmarkPositions.match(position);
+		pieces = new ArrayList<>();
+		for (ChessPiece[] row : chessMatch.getPieces()) {
+			for (ChessPiece p : row) {
+				if (p != null && p.toString().equals(piece)) {
+					pieces.add(p);
+				}
+			}
+		}
+	}
+
+	@Benchmark
+	public void possibleMoves(Blackhole bh) {
+		for (int i = 0; i < pieces.size(); i++) {
+			bh.consume(pieces.get(i).possibleMoves());
+		}
+	}
+
+}
@@ -0,0 +1,68 @@
+package chess.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chess.engine.ParallelSearch;
+import chess.engine.TranspositionTable;
+
+/**
+ * Tempo até a profundidade pedida da busca do motor local com 1, 2, 4 e 8 threads (Lazy SMP).
+ * A tabela de transposição é limpa antes de cada busca, então cada medida parte do zero;
+ * o ganho com N threads é o tempo com 1 thread dividido pelo tempo com N.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchBenchmark {
+
+	@Param({"OPENING", "MIDDLEGAME", "ENDGAME"})
+	public String position;
+
+	@Param({"1", "2", "4", "8"})
+	public int threads;
+
+	@Param({"6"})
+	public int depth;
+
+	private String fen;
+	private ParallelSearch search;
+
+	@Setup
+	public void setup() {
+		fen = BenchmarkPositions.match(position).getFen();
+		search = new ParallelSearch(threads, new TranspositionTable(64));
+	}
+
+	@Setup(Level.Invocation)
+	public void clearTable() {
+		search.getTable().clear();
+	}
+
+	@TearDown
+	public void tearDown() {
+		search.close();
+	}
+
+	@Benchmark
+	public int bestMove() {
+		return search.search(fen, depth);
+	}
+
+}
@@ -0,0 +1,161 @@
+package application;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import chess.server.GameServer;
+
+public class GameServerProgram {
+
+	private static final int MAX_PLIES = 200;
+
+	/**
+	 * Uso: GameServerProgram [--port N] [--journal &lt;diretório&gt;]
+	 *      GameServerProgram --load &lt;clientes&gt; [--seconds S] [--journal &lt;diretório&gt;]
+	 * Com --journal, as partidas são gravadas no diretório e recuperadas dele ao subir.
+	 * Sem --load, hospeda partidas até o processo ser encerrado. Com --load, sobe o servidor em uma porta livre
+	 * e abre a quantidade informada de conexões, cada uma com a sua partida, jogando jogadas aleatórias pelo
+	 * protocolo durante S segundos (10 por padrão); no fim imprime as jogadas por segundo, a latência média
+	 * e a memória usada por partida conectada.
+	 */
+	public static void main(String[] args) throws Exception {
+		int port = 7878;
+		int clients = 0;
+		int seconds = 10;
+		Path journal = null;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("--port") && i + 1 < args.length) {
+				port = Integer.parseInt(args[++i]);
+			}
+			else if (args[i].equals("--load") && i + 1 < args.length) {
+				clients = Integer.parseInt(args[++i]);
+			}
+			else if (args[i].equals("--seconds") && i + 1 < args.length) {
+				seconds = Integer.parseInt(args[++i]);
+			}
+			else if (args[i].equals("--journal") && i + 1 < args.length) {
+				journal = Paths.get(args[++i]);
+			}
+			else {
+				System.out.println("Usage: GameServerProgram [--port N] | --load <clients> [--seconds S] [--journal <dir>]");
+				return;
+			}
+		}
+
+		if (clients == 0) {
+			GameServer server = new GameServer(port, journal);
+			server.start();
+			System.out.println("Game server listening on port " + server.getPort());
+			if (journal != null) {
+				System.out.println("Matches recovered from " + journal + ": " + server.getMatchCount());
+			}
+			Thread.currentThread().join();
+			return;
+		}
+
+		try (GameServer server = new GameServer(0, journal)) {
+			server.start();
+			long baseline = usedMemory();
+
+			LongAdder moves = new LongAdder();
+			LongAdder latency = new LongAdder();
+			LongAdder games = new LongAdder();
+			CountDownLatch connected = new CountDownLatch(clients);
+			CountDownLatch finished = new CountDownLatch(1);
+			long[] deadline = new long[1];
+			List<Thread> threads = new ArrayList<>(clients);
+			for (int i = 0; i < clients; i++) {
+				threads.add(Thread.ofVirtual().start(() -> play(server.getPort(), connected, finished, deadline, moves, latency, games)));
+			}
+			connected.await();
+
+			// todas as conexões estão abertas, cada uma com a sua partida: mede a memória antes de começar a jogar
+			long perMatch = (usedMemory() - baseline) / clients;
+			System.out.println("Connected matches: " + server.getMatchCount());
+			System.out.println("Memory per connected match: " + perMatch + " bytes");
+
+			long start = System.nanoTime();
+			deadline[0] = start + seconds * 1_000_000_000L;
+			finished.countDown();
+			for (Thread thread : threads) {
+				thread.join();
+			}
+			double elapsed = (System.nanoTime() - start) / 1e9;
+
+			System.out.println("Games: " + games.sum() + ", moves: " + moves.sum());
+			System.out.printf("Moves/s: %.0f%n", moves.sum() / elapsed);
+			System.out.printf("Mean request latency: %.3f ms%n", latency.sum() / 1e6 / Math.max(1, moves.sum()));
+		}
+	}
+
+	/**
+	 * Um cliente da carga: cria uma partida e joga jogadas aleatórias até o fim do tempo,
+	 * começando uma nova partida quando a atual termina.
+	 */
+	private static void play(int port, CountDownLatch connected, CountDownLatch finished, long[] deadline,
+			LongAdder moves, LongAdder latency, LongAdder games) {
+		try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+				BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+				PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8)) {
+			socket.setTcpNoDelay(true);
+			String id = request(in, out, "new");
+			connected.countDown();
+			finished.await();
+
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			int plies = 0;
+			while (System.nanoTime() < deadline[0]) {
+				String legal = request(in, out, "moves " + id);
+				if (legal.isEmpty() || plies == MAX_PLIES) {
+					request(in, out, "close " + id);
+					id = request(in, out, "new");
+					games.increment();
+					plies = 0;
+					continue;
+				}
+				String[] choices = legal.split(" ");
+				long t = System.nanoTime();
+				request(in, out, "move " + id + " " + choices[random.nextInt(choices.length)]);
+				latency.add(System.nanoTime() - t);
+				moves.increment();
+				plies++;
+			}
+			out.println("quit");
+		}
+		catch (IOException | InterruptedException e) {
+			System.err.println("Client failed: " + e.getMessage());
+			connected.countDown();
+		}
+	}
+
+	private static String request(BufferedReader in, PrintWriter out, String command) throws IOException {
+		out.println(command);
+		String response = in.readLine();
+		if (response == null || !response.startsWith("ok")) {
+			throw new IOException(command + ": " + response);
+		}
+		return response.length() > 3 ? response.substring(3) : "";
+	}
+
+	private static long usedMemory() throws InterruptedException {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+			Thread.sleep(50);
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+}
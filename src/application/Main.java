@@ -1,18 +1,28 @@
 package application;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 import boardgame.Piece;
+import chess.Bitboard;
 import chess.ChessException;
 import chess.ChessMatch;
 import chess.ChessPiece;
 import chess.ChessPosition;
 import chess.Color;
+import chess.MatchSnapshot;
+import chess.api.BestMoveCache;
 import chess.api.StockfishAPI;
+import chess.engine.EndgameTablebase;
+import chess.engine.PolyglotBook;
+import chess.engine.SearchEngine;
 import chess.pieces.Bishop;
 import chess.pieces.King;
 import chess.pieces.Knight;
@@ -58,10 +68,19 @@ public class Main extends Application {
     private final int squareSize = 80;
     private final int boardSize = 8;
 
-    private enum GameMode { HUMAN_VS_HUMAN, HUMAN_VS_AI }
+    private enum GameMode { HUMAN_VS_HUMAN, HUMAN_VS_AI, HUMAN_VS_LOCAL_AI }
     private GameMode gameMode;
     private int aiDifficulty = 10;
 
+    // Respostas do Stockfish guardadas entre partidas e execuções
+    private final BestMoveCache stockfishCache = createStockfishCache();
+
+    // Livro de aberturas Polyglot opcional, consultado antes de qualquer motor
+    private final PolyglotBook openingBook = openOpeningBook();
+
+    // Motor local, criado na primeira jogada dele e mantido até o fim: a tabela de transposição passa de uma jogada à outra
+    private SearchEngine localEngine;
+
     @Override
     public void start(Stage primaryStage) {
         
@@ -70,6 +89,11 @@ public class Main extends Application {
             return;
         }
 
+        // Gera as tabelas de finais em segundo plano, para que não atrasem a primeira jogada do computador
+        Thread tablebaseLoader = new Thread(EndgameTablebase::load);
+        tablebaseLoader.setDaemon(true);
+        tablebaseLoader.start();
+
         try {
             try (InputStream fontStream = Main.class.getResourceAsStream("/fonts/NotoSansSymbols2-Regular.ttf")) {
                 if (fontStream == null) {
@@ -157,7 +181,7 @@ public class Main extends Application {
             try {
                 chessMatch.performChessMove(source, target);
                 
-                if (gameMode == GameMode.HUMAN_VS_AI && !chessMatch.getCheckMate() && !chessMatch.getStalemate()) {
+                if (gameMode != GameMode.HUMAN_VS_HUMAN && !chessMatch.getCheckMate() && !chessMatch.getStalemate()) {
                     makeAiMove();
                 }
 
@@ -176,11 +200,27 @@ public class Main extends Application {
         canvas.setDisable(true);
         statusLabel.setText("AI is thinking...");
 
+        // A análise lê o retrato imutável da posição, não a partida, que continua sendo da thread da interface
+        MatchSnapshot snapshot = chessMatch.getSnapshot();
+
         Task<String> task = new Task<String>() {
             @Override
             protected String call() throws Exception {
-                String fen = chessMatch.getFen();
-                return StockfishAPI.getBestMove(fen, aiDifficulty);
+                String fen = snapshot.getFen();
+                if (openingBook != null) {
+                    String bookMove = openingBook.getBookMove(fen);
+                    if (bookMove != null) {
+                        return bookMove;
+                    }
+                }
+                String tablebaseMove = EndgameTablebase.getBestMove(fen);
+                if (tablebaseMove != null) {
+                    return tablebaseMove;
+                }
+                if (gameMode == GameMode.HUMAN_VS_LOCAL_AI) {
+                    return localEngine().getBestMove(fen, localSearchDepth());
+                }
+                return stockfishCache.getBestMove(fen, aiDifficulty);
             }
         };
 
@@ -191,6 +231,10 @@ public class Main extends Application {
                     ChessPosition aiSource = new ChessPosition(bestMove.charAt(0), Character.getNumericValue(bestMove.charAt(1)));
                     ChessPosition aiTarget = new ChessPosition(bestMove.charAt(2), Character.getNumericValue(bestMove.charAt(3)));
                     chessMatch.performChessMove(aiSource, aiTarget);
+                    // Promoção: o quinto caractere indica a peça escolhida (ex: "e7e8q")
+                    if (bestMove.length() > 4 && chessMatch.getPromoted() != null) {
+                        chessMatch.replacePromotedPiece(String.valueOf(bestMove.charAt(4)).toUpperCase());
+                    }
                 }
                 refreshBoard();
                 canvas.setDisable(false);
@@ -199,7 +243,11 @@ public class Main extends Application {
 
         task.setOnFailed(e -> {
             Platform.runLater(() -> {
-                showErrorAlert("Could not get AI move. Check internet connection.");
+                if (gameMode == GameMode.HUMAN_VS_LOCAL_AI) {
+                    showErrorAlert("Could not get AI move from the local engine.");
+                } else {
+                    showErrorAlert("Could not get AI move. Check internet connection.");
+                }
                 refreshBoard();
                 canvas.setDisable(false);
             });
@@ -208,6 +256,57 @@ public class Main extends Application {
         new Thread(task).start();
     }
 
+    private static BestMoveCache createStockfishCache() {
+        Path file = Path.of(System.getProperty("user.home"), ".chess-system", "stockfish-moves.tsv");
+        try {
+            Files.createDirectories(file.getParent());
+            return new BestMoveCache(StockfishAPI::getBestMove, 10_000, file);
+        } catch (IOException | UncheckedIOException e) {
+            // Sem acesso ao disco, o cache fica só na memória
+            return new BestMoveCache(StockfishAPI::getBestMove, 10_000);
+        }
+    }
+
+    // O livro vem da propriedade "chess.book" ou de ~/.chess-system/book.bin, se existir
+    private static PolyglotBook openOpeningBook() {
+        String property = System.getProperty("chess.book");
+        Path file = property != null ? Path.of(property) : Path.of(System.getProperty("user.home"), ".chess-system", "book.bin");
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            return PolyglotBook.open(file);
+        } catch (IOException e) {
+            System.out.println("Could not open opening book " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private synchronized SearchEngine localEngine() {
+        if (localEngine == null) {
+            localEngine = new SearchEngine(SearchEngine.defaultThreads());
+        }
+        return localEngine;
+    }
+
+    @Override
+    public void stop() {
+        synchronized (this) {
+            if (localEngine != null) {
+                localEngine.close();
+            }
+        }
+        stockfishCache.close();
+    }
+
+    // O motor local é bem mais lento que o Stockfish, então cada nível usa uma profundidade menor
+    private int localSearchDepth() {
+        if (aiDifficulty <= 2) return 2;
+        if (aiDifficulty <= 5) return 3;
+        if (aiDifficulty <= 10) return 4;
+        return 5;
+    }
+
     // MÉTODO para usar o Canvas
     private void refreshBoard() {
         GraphicsContext gc = canvas.getGraphicsContext2D();
@@ -224,27 +323,28 @@ public class Main extends Application {
             }
         }
 
-        // 2. Desenha as peças
-        ChessPiece[][] pieces = chessMatch.getPieces();
+        // 2. Desenha as peças, lidas do retrato da última jogada (sem montar uma matriz de peças a cada redesenho)
+        MatchSnapshot snapshot = chessMatch.getSnapshot();
         gc.setFont(chessFont);
         gc.setTextAlign(TextAlignment.CENTER);
 
-        for (int row = 0; row < pieces.length; row++) {
-            for (int col = 0; col < pieces[row].length; col++) {
-                if (pieces[row][col] != null) {
-                    if (pieces[row][col].getColor() == Color.WHITE) {
+        for (int row = 0; row < boardSize; row++) {
+            for (int col = 0; col < boardSize; col++) {
+                int piece = snapshot.pieceAt(row, col);
+                if (piece != Bitboard.NO_PIECE) {
+                    if (Bitboard.colorOf(piece) == Bitboard.WHITE) {
                         gc.setFill(Paint.valueOf("#FFFFFF"));
                     } else {
                         gc.setFill(Paint.valueOf("#000000"));
                     }
                     // Desenha a peça centralizada no quadrado
-                    gc.fillText(getPieceChar(pieces[row][col]), col * squareSize + squareSize / 2, row * squareSize + squareSize / 2 + 15);
+                    gc.fillText(getPieceChar(piece), col * squareSize + squareSize / 2, row * squareSize + squareSize / 2 + 15);
                 }
             }
         }
         
         // 3. Atualiza os outros componentes da UI
-        updateStatusLabel();
+        updateStatusLabel(snapshot);
         updateCapturedPiecesDisplay();
     }
 
@@ -262,16 +362,16 @@ public class Main extends Application {
         }
     }
 
-    private void updateStatusLabel() {
-        if (chessMatch.getCheckMate()) {
-            statusLabel.setText("CHECKMATE! Winner: " + chessMatch.getCurrentPlayer());
+    private void updateStatusLabel(MatchSnapshot snapshot) {
+        if (snapshot.getCheckMate()) {
+            statusLabel.setText("CHECKMATE! Winner: " + snapshot.getCurrentPlayer());
         }
-        else if (chessMatch.getStalemate()) {
+        else if (snapshot.getStalemate()) {
             statusLabel.setText("STALEMATE!");
         }
         else {
-            String statusText = "Turn: " + chessMatch.getTurn() + " - Waiting Player: " + chessMatch.getCurrentPlayer();
-            if (chessMatch.getCheck()) {
+            String statusText = "Turn: " + snapshot.getTurn() + " - Waiting Player: " + snapshot.getCurrentPlayer();
+            if (snapshot.getCheck()) {
                 statusText += " - CHECK!";
             }
             statusLabel.setText(statusText);
@@ -309,6 +409,13 @@ public class Main extends Application {
         }
     }
     
+    // Peça codificada como no Bitboard (cor * 6 + tipo): P, N, B, R, Q, K brancos e depois pretos
+    private static final String PIECE_CHARS = "\u2659\u2658\u2657\u2656\u2655\u2654\u265F\u265E\u265D\u265C\u265B\u265A";
+
+    private String getPieceChar(int piece) {
+        return String.valueOf(PIECE_CHARS.charAt(piece));
+    }
+
     private String getPieceChar(ChessPiece piece) {
         if (piece == null) return "";
         
@@ -335,6 +442,7 @@ public class Main extends Application {
         List<String> choices = new ArrayList<>();
         choices.add("Human vs Human");
         choices.add("Human vs AI");
+        choices.add("Human vs AI (Offline)");
 
         ChoiceDialog<String> dialog = new ChoiceDialog<>("Human vs Human", choices);
         dialog.setTitle("Chess Game");
@@ -343,8 +451,10 @@ public class Main extends Application {
 
         Optional<String> result = dialog.showAndWait();
         if (result.isPresent()){
-            gameMode = result.get().equals("Human vs Human") ? GameMode.HUMAN_VS_HUMAN : GameMode.HUMAN_VS_AI;
-            if (gameMode == GameMode.HUMAN_VS_AI) {
+            if (result.get().equals("Human vs Human")) gameMode = GameMode.HUMAN_VS_HUMAN;
+            else if (result.get().equals("Human vs AI (Offline)")) gameMode = GameMode.HUMAN_VS_LOCAL_AI;
+            else gameMode = GameMode.HUMAN_VS_AI;
+            if (gameMode != GameMode.HUMAN_VS_HUMAN) {
                 return selectAiDifficulty();
             }
             return true;
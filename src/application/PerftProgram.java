@@ -0,0 +1,101 @@
+package application;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import chess.ChessMatch;
+import chess.Perft;
+
+public class PerftProgram {
+
+	private static final String INITIAL_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+	// posições de referência (FEN, profundidade, total de nós conhecido) usadas por --check
+	private static final Object[][] REFERENCE = {
+		{ INITIAL_FEN, 5, 4_865_609L },
+		// "Kiwipete": roques, pinos e en passant no meio-jogo
+		{ "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", 4, 4_085_603L },
+		// en passant que descobre xeque na horizontal
+		{ "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", 5, 674_624L },
+		// promoções, com e sem captura
+		{ "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", 4, 422_333L },
+		{ "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", 4, 2_103_487L },
+		{ "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10", 4, 3_894_594L },
+	};
+
+	/**
+	 * Uso: PerftProgram <profundidade> [FEN] [--threads N]
+	 * Imprime a contagem por jogada da raiz ("divide"), o total de nós, o tempo e os nós por segundo.
+	 * Uso: PerftProgram --check
+	 * Confere as posições de referência e termina com código 1 se algum total for diferente do conhecido.
+	 */
+	public static void main(String[] args) {
+		if (args.length < 1) {
+			System.out.println("Usage: PerftProgram <depth> [fen] [--threads N] | --check");
+			return;
+		}
+		if (args[0].equals("--check")) {
+			check();
+			return;
+		}
+		int depth = Integer.parseInt(args[0]);
+		String fen = INITIAL_FEN;
+		int threads = 1;
+		for (int i = 1; i < args.length; i++) {
+			if (args[i].equals("--threads") && i + 1 < args.length) {
+				threads = Integer.parseInt(args[++i]);
+			}
+			else {
+				fen = args[i];
+			}
+		}
+
+		long start = System.nanoTime();
+		Map<String, Long> divide;
+		if (threads > 1) {
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			try {
+				divide = Perft.divide(fen, depth, pool);
+			}
+			finally {
+				pool.shutdown();
+			}
+		}
+		else {
+			divide = Perft.divide(new ChessMatch(fen), depth);
+		}
+		long elapsed = System.nanoTime() - start;
+
+		long nodes = 0L;
+		for (Map.Entry<String, Long> entry : divide.entrySet()) {
+			System.out.println(entry.getKey() + ": " + entry.getValue());
+			nodes += entry.getValue();
+		}
+		double seconds = elapsed / 1e9;
+		System.out.println();
+		System.out.println("Moves: " + divide.size());
+		System.out.println("Nodes: " + nodes);
+		System.out.printf("Time: %.3f s (%d thread%s)%n", seconds, threads, threads > 1 ? "s" : "");
+		System.out.printf("NPS: %.0f%n", nodes / Math.max(seconds, 1e-9));
+	}
+
+	private static void check() {
+		int failures = 0;
+		for (Object[] reference : REFERENCE) {
+			String fen = (String)reference[0];
+			int depth = (Integer)reference[1];
+			long expected = (Long)reference[2];
+			long nodes = Perft.perft(new ChessMatch(fen), depth);
+			System.out.printf("%s %s depth %d: %d (expected %d)%n", nodes == expected ? "ok    " : "FAILED", fen, depth, nodes, expected);
+			if (nodes != expected) {
+				failures++;
+			}
+		}
+		if (failures > 0) {
+			System.out.println(failures + " position(s) failed");
+			System.exit(1);
+		}
+		System.out.println("All positions match");
+	}
+
+}
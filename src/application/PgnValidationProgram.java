@@ -0,0 +1,55 @@
+package application;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+
+import chess.pgn.PgnValidator;
+
+public class PgnValidationProgram {
+
+	/**
+	 * Uso: PgnValidationProgram <arquivo.pgn> [--threads N]
+	 * Repete todas as partidas do arquivo e imprime as inválidas, os resultados e a vazão.
+	 */
+	public static void main(String[] args) throws IOException {
+		Path file = null;
+		int threads = Runtime.getRuntime().availableProcessors();
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("--threads") && i + 1 < args.length) {
+				threads = Integer.parseInt(args[++i]);
+			}
+			else {
+				file = Paths.get(args[i]);
+			}
+		}
+		if (file == null) {
+			System.out.println("Usage: PgnValidationProgram <file.pgn> [--threads N]");
+			return;
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		PgnValidator.Report report;
+		try {
+			report = PgnValidator.validate(file, pool);
+		}
+		finally {
+			pool.shutdown();
+		}
+
+		for (PgnValidator.InvalidGame invalid : report.getErrors()) {
+			System.out.println(invalid);
+		}
+		if (report.getInvalidGames() > report.getErrors().size()) {
+			System.out.println("... and " + (report.getInvalidGames() - report.getErrors().size()) + " more invalid games");
+		}
+		System.out.println();
+		System.out.println("Games: " + report.getGames() + " (" + report.getInvalidGames() + " invalid)");
+		System.out.println("Plies: " + report.getPlies());
+		System.out.println("Results: " + report.getResults());
+		System.out.printf("Time: %.3f s (%d thread%s)%n", report.getElapsedNanos() / 1e9, threads, threads > 1 ? "s" : "");
+		System.out.printf("Games/s: %.0f%n", report.getGamesPerSecond());
+	}
+
+}
@@ -0,0 +1,114 @@
+package application;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import chess.api.UciEnginePool;
+
+/**
+ * Verifica o {@link UciEnginePool} sem um motor de verdade: um script de shell faz o papel do motor,
+ * responde "bestmove e2e4" e trava (sem responder) quando recebe "go depth 99".
+ * Uso: UciPoolCheckProgram. Termina com código 1 se alguma verificação falhar; precisa de /bin/sh.
+ */
+public class UciPoolCheckProgram {
+
+	private static final String FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+	private static final String FAKE_ENGINE = String.join("\n",
+			"while read line; do",
+			"  case \"$line\" in",
+			"    uci) echo 'id name fake'; echo uciok ;;",
+			"    isready) echo readyok ;;",
+			"    'go depth 99') sleep 600 ;;",
+			"    go*) echo 'info depth 1'; echo 'bestmove e2e4' ;;",
+			"    quit) exit 0 ;;",
+			"  esac",
+			"done",
+			"");
+
+	private static int failures;
+
+	public static void main(String[] args) throws Exception {
+		if (!Files.isExecutable(Path.of("/bin/sh"))) {
+			System.out.println("Skipped: /bin/sh not found");
+			return;
+		}
+		Path script = Files.createTempFile("fake-uci", ".sh");
+		try {
+			Files.writeString(script, FAKE_ENGINE);
+			String[] command = { "/bin/sh", script.toString() };
+			checkAnswers(command);
+			checkTimeout(command);
+			checkClosedPool(command);
+		}
+		finally {
+			Files.deleteIfExists(script);
+		}
+		System.out.println(failures == 0 ? "All checks passed" : failures + " check(s) failed");
+		if (failures > 0) {
+			System.exit(1);
+		}
+	}
+
+	private static void checkAnswers(String[] command) throws Exception {
+		try (UciEnginePool pool = new UciEnginePool(2, Duration.ofSeconds(5), command)) {
+			for (int i = 0; i < 3; i++) {
+				check("answer " + (i + 1), "e2e4".equals(pool.getBestMove(FEN, 5)));
+			}
+		}
+	}
+
+	// um motor que não responde no prazo é morto e descartado, e a consulta seguinte inicia outro
+	private static void checkTimeout(String[] command) throws Exception {
+		try (UciEnginePool pool = new UciEnginePool(1, Duration.ofMillis(500), command)) {
+			long start = System.nanoTime();
+			try {
+				pool.getBestMove(FEN, 99);
+				check("timeout throws IOException", false);
+			}
+			catch (IOException e) {
+				long millis = (System.nanoTime() - start) / 1_000_000;
+				check("timeout throws IOException within 5 s (" + millis + " ms)", millis < 5_000);
+			}
+			check("pool answers after a timeout", "e2e4".equals(pool.getBestMove(FEN, 5)));
+		}
+	}
+
+	// fechar o conjunto libera uma consulta presa e impede consultas novas
+	private static void checkClosedPool(String[] command) throws Exception {
+		UciEnginePool pool = new UciEnginePool(1, Duration.ofSeconds(60), command);
+		AtomicReference<Throwable> error = new AtomicReference<>();
+		Thread stuck = new Thread(() -> {
+			try {
+				pool.getBestMove(FEN, 99);
+			}
+			catch (Exception e) {
+				error.set(e);
+			}
+		});
+		stuck.start();
+		Thread.sleep(500);
+		long start = System.nanoTime();
+		pool.close();
+		stuck.join(5_000);
+		long millis = (System.nanoTime() - start) / 1_000_000;
+		check("close releases a stuck query (" + millis + " ms)", !stuck.isAlive() && error.get() instanceof IOException);
+		try {
+			pool.getBestMove(FEN, 5);
+			check("closed pool rejects queries", false);
+		}
+		catch (IllegalStateException e) {
+			check("closed pool rejects queries", true);
+		}
+	}
+
+	private static void check(String name, boolean passed) {
+		System.out.println((passed ? "ok     " : "FAILED ") + name);
+		if (!passed) {
+			failures++;
+		}
+	}
+
+}
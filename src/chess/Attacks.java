@@ -0,0 +1,277 @@
+package chess;
+
+/**
+ * Conjuntos de casas atacadas por cada tipo de peça, calculados sobre bitboards.
+ * Os ataques são lidos de tabelas montadas uma vez, quando a classe é carregada: as peças que saltam (cavalo,
+ * rei e peão) têm uma entrada por casa, e as deslizantes (torre e bispo) usam bitboards mágicos, em que as
+ * peças que podem bloquear os raios, multiplicadas por um número "mágico" da casa, dão o índice na tabela.
+ */
+public final class Attacks {
+
+	public static final long FILE_A = 0x0101010101010101L;
+	public static final long FILE_B = FILE_A << 1;
+	public static final long FILE_G = FILE_A << 6;
+	public static final long FILE_H = FILE_A << 7;
+	public static final long RANK_1 = 0xFFL;
+	public static final long RANK_8 = RANK_1 << 56;
+
+	private static final long[][] BETWEEN = new long[64][64];
+	private static final long[][] LINE = new long[64][64];
+
+	private static final long[] KNIGHT_ATTACKS = new long[64];
+	private static final long[] KING_ATTACKS = new long[64];
+	private static final long[][] PAWN_ATTACKS = new long[2][64];
+
+	// uma tabela por tipo de peça deslizante, com a fatia de cada casa começando em OFFSET e tendo 2^(64 - SHIFT)
+	// entradas; as tabelas ocupam 800 KB (torre) e 41 KB (bispo)
+	private static final long[] ROOK_MASK = new long[64];
+	private static final int[] ROOK_SHIFT = new int[64];
+	private static final int[] ROOK_OFFSET = new int[64];
+	private static final long[] ROOK_TABLE = new long[102400];
+	private static final long[] BISHOP_MASK = new long[64];
+	private static final int[] BISHOP_SHIFT = new int[64];
+	private static final int[] BISHOP_OFFSET = new int[64];
+	private static final long[] BISHOP_TABLE = new long[5248];
+
+	// achados uma vez por busca aleatória (números com poucos bits ligados, testados contra todas as ocupações
+	// da máscara) e fixados aqui, para que carregar a classe só preencha as tabelas
+	private static final long[] ROOK_MAGIC = {
+		0x1080004008801020L, 0x0840092002C03000L, 0x1900200010400900L, 0x0880100008000480L,
+		0x4200100420080200L, 0x8100020100080400L, 0x0200040110886200L, 0x0200008040220411L,
+		0x0404800084400220L, 0x0000401000402000L, 0x0086001081220440L, 0x0408800800100280L,
+		0x000A001201040820L, 0x8848800200840080L, 0x4001000100040200L, 0x0442000102105084L,
+		0x9080010020804100L, 0x0040404000201009L, 0x0000808010002009L, 0x2200090021D00100L,
+		0x0008008008040080L, 0x0004004002010040L, 0x0011040008015042L, 0x00000A0001768104L,
+		0x0000800080204009L, 0x2010004140002001L, 0x9800200280100080L, 0x1000100080080080L,
+		0x0050500500080100L, 0x0000020080040080L, 0x0C10010400420810L, 0x1040008200005104L,
+		0x01808240088004A0L, 0x0882804004802000L, 0x0880402001001100L, 0x2000210409001000L,
+		0x2000480131001500L, 0x0000800400800200L, 0x000002380C001003L, 0x4600084882000431L,
+		0x0080002000504000L, 0x0300500020004002L, 0x0040408200220011L, 0x0010040008004040L,
+		0x0000080004008080L, 0x0010040002008080L, 0x2012004881020004L, 0x8300842444820011L,
+		0x0088403882010200L, 0x0820400080210100L, 0x0110910040A00300L, 0x0801100280080480L,
+		0x0242009008200600L, 0x1002000489500200L, 0x0040800200010080L, 0x0091800041000080L,
+		0x0000209300488001L, 0x04C1002414824001L, 0x020020000B001041L, 0x7000100004200901L,
+		0x8002002004100802L, 0x30010002084C0007L, 0x0888221800813004L, 0x4000002840840112L
+	};
+	private static final long[] BISHOP_MAGIC = {
+		0x20C0090901061081L, 0x0024040094030104L, 0x8210810200290200L, 0x0011040484620000L,
+		0x0081104002221000L, 0x0009012011001350L, 0x0081010802400380L, 0x0000420210010408L,
+		0x0008105002280050L, 0x0001028484040044L, 0x2A00880810408804L, 0x7020022282000100L,
+		0x0084040420100A50L, 0x000401010840E000L, 0x2020020210420888L, 0x0008084202012010L,
+		0x2010400810018800L, 0x0445122008020840L, 0x0804100808002008L, 0x0008002104110100L,
+		0x0061005820080800L, 0x2001000200820100L, 0x480C210084010800L, 0x3004442500480420L,
+		0x1010102240048100L, 0x00182009084220A3L, 0x8803090A10004205L, 0x0208080040202020L,
+		0x000C044084010040L, 0x00A1010002004106L, 0x6008210020640202L, 0x1600902112860801L,
+		0x00042008C1220200L, 0x010C042002440140L, 0x5022080200040820L, 0x0402004042940100L,
+		0x0860108400008020L, 0x000C080022021000L, 0x0264080652822100L, 0x4005031221010401L,
+		0x0004502410008400L, 0x000500B010A20400L, 0x0415094050080800L, 0x080000201800A104L,
+		0x4022A80304000110L, 0x4012140802028020L, 0x40200104010100A0L, 0x12810806008B0C41L,
+		0x0020441008080000L, 0x2002120084045420L, 0x0704020062080002L, 0x0000001084040001L,
+		0x0322200891240200L, 0xF040200210024800L, 0x0140824832008042L, 0x000210020A004602L,
+		0x0083042805141020L, 0x002C12009A011000L, 0x0041A00044140400L, 0x00004004020A0202L,
+		0x0000140010020210L, 0x2864160811012200L, 0x2060080841082A17L, 0xA010041108003100L
+	};
+
+	static {
+		for (int square = 0; square < 64; square++) {
+			long b = 1L << square;
+			KNIGHT_ATTACKS[square] = ((b << 17) & ~FILE_A) | ((b << 15) & ~FILE_H)
+					| ((b << 10) & ~(FILE_A | FILE_B)) | ((b << 6) & ~(FILE_G | FILE_H))
+					| ((b >>> 17) & ~FILE_H) | ((b >>> 15) & ~FILE_A)
+					| ((b >>> 10) & ~(FILE_G | FILE_H)) | ((b >>> 6) & ~(FILE_A | FILE_B));
+			long sides = ((b << 1) & ~FILE_A) | ((b >>> 1) & ~FILE_H);
+			long row = b | sides;
+			KING_ATTACKS[square] = sides | (row << 8) | (row >>> 8);
+			PAWN_ATTACKS[Bitboard.WHITE][square] = ((b << 7) & ~FILE_H) | ((b << 9) & ~FILE_A);
+			PAWN_ATTACKS[Bitboard.BLACK][square] = ((b >>> 9) & ~FILE_H) | ((b >>> 7) & ~FILE_A);
+		}
+
+		int rookOffset = 0;
+		int bishopOffset = 0;
+		for (int square = 0; square < 64; square++) {
+			// as casas da borda nunca mudam o ataque (o raio termina nelas de qualquer jeito), então ficam fora da máscara
+			long edges = ((RANK_1 | RANK_8) & ~(RANK_1 << (square & ~7))) | ((FILE_A | FILE_H) & ~(FILE_A << (square & 7)));
+			long rookMask = (slide(square, 0L, 1, 0) | slide(square, 0L, -1, 0) | slide(square, 0L, 0, 1) | slide(square, 0L, 0, -1)) & ~edges;
+			long bishopMask = (slide(square, 0L, 1, 1) | slide(square, 0L, 1, -1) | slide(square, 0L, -1, 1) | slide(square, 0L, -1, -1))
+					& ~(RANK_1 | RANK_8 | FILE_A | FILE_H);
+			ROOK_MASK[square] = rookMask;
+			ROOK_SHIFT[square] = 64 - Long.bitCount(rookMask);
+			ROOK_OFFSET[square] = rookOffset;
+			rookOffset += fillTable(square, rookMask, ROOK_MAGIC[square], ROOK_SHIFT[square], true, ROOK_TABLE, rookOffset);
+			BISHOP_MASK[square] = bishopMask;
+			BISHOP_SHIFT[square] = 64 - Long.bitCount(bishopMask);
+			BISHOP_OFFSET[square] = bishopOffset;
+			bishopOffset += fillTable(square, bishopMask, BISHOP_MAGIC[square], BISHOP_SHIFT[square], false, BISHOP_TABLE, bishopOffset);
+		}
+
+		int[][] directions = { {1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1} };
+		for (int square = 0; square < 64; square++) {
+			for (int[] d : directions) {
+				long line = slide(square, 0L, d[0], d[1]) | slide(square, 0L, -d[0], -d[1]) | (1L << square);
+				long between = 0L;
+				int rank = (square >>> 3) + d[0];
+				int file = (square & 7) + d[1];
+				while (rank >= 0 && rank < 8 && file >= 0 && file < 8) {
+					int target = (rank << 3) | file;
+					BETWEEN[square][target] = between;
+					LINE[square][target] = line;
+					between |= 1L << target;
+					rank += d[0];
+					file += d[1];
+				}
+			}
+		}
+	}
+
+	private Attacks() {
+	}
+
+	/**
+	 * @return As casas estritamente entre "from" e "to" quando estão na mesma linha, coluna ou diagonal; senão 0.
+	 */
+	public static long between(int from, int to) {
+		return BETWEEN[from][to];
+	}
+
+	/**
+	 * @return A linha, coluna ou diagonal inteira que passa pelas duas casas (borda a borda); senão 0.
+	 */
+	public static long line(int a, int b) {
+		return LINE[a][b];
+	}
+
+	public static long knightAttacks(int square) {
+		return KNIGHT_ATTACKS[square];
+	}
+
+	public static long kingAttacks(int square) {
+		return KING_ATTACKS[square];
+	}
+
+	public static long pawnAttacks(int color, int square) {
+		return PAWN_ATTACKS[color][square];
+	}
+
+	public static long rookAttacks(int square, long occupied) {
+		return ROOK_TABLE[ROOK_OFFSET[square] + (int)(((occupied & ROOK_MASK[square]) * ROOK_MAGIC[square]) >>> ROOK_SHIFT[square])];
+	}
+
+	public static long bishopAttacks(int square, long occupied) {
+		return BISHOP_TABLE[BISHOP_OFFSET[square] + (int)(((occupied & BISHOP_MASK[square]) * BISHOP_MAGIC[square]) >>> BISHOP_SHIFT[square])];
+	}
+
+	public static long queenAttacks(int square, long occupied) {
+		return rookAttacks(square, occupied) | bishopAttacks(square, occupied);
+	}
+
+	/**
+	 * Verifica se a casa é atacada por alguma peça da cor informada, partindo da própria casa:
+	 * cada tipo de peça é testado com o seu próprio padrão de ataque "ao contrário".
+	 */
+	public static boolean isSquareAttacked(Bitboard position, int square, int byColor) {
+		long occupied = position.occupied();
+		if ((pawnAttacks(byColor ^ 1, square) & position.pieces(byColor, Bitboard.PAWN)) != 0L) {
+			return true;
+		}
+		if ((knightAttacks(square) & position.pieces(byColor, Bitboard.KNIGHT)) != 0L) {
+			return true;
+		}
+		if ((kingAttacks(square) & position.pieces(byColor, Bitboard.KING)) != 0L) {
+			return true;
+		}
+		long queens = position.pieces(byColor, Bitboard.QUEEN);
+		long rooks = position.pieces(byColor, Bitboard.ROOK) | queens;
+		if (rooks != 0L && (rookAttacks(square, occupied) & rooks) != 0L) {
+			return true;
+		}
+		long bishops = position.pieces(byColor, Bitboard.BISHOP) | queens;
+		return bishops != 0L && (bishopAttacks(square, occupied) & bishops) != 0L;
+	}
+
+	/**
+	 * @return As peças da cor informada que atacam a casa, considerando a ocupação dada.
+	 */
+	public static long attackersTo(Bitboard position, int square, int byColor, long occupied) {
+		long queens = position.pieces(byColor, Bitboard.QUEEN);
+		return (pawnAttacks(byColor ^ 1, square) & position.pieces(byColor, Bitboard.PAWN))
+				| (knightAttacks(square) & position.pieces(byColor, Bitboard.KNIGHT))
+				| (kingAttacks(square) & position.pieces(byColor, Bitboard.KING))
+				| (rookAttacks(square, occupied) & (position.pieces(byColor, Bitboard.ROOK) | queens))
+				| (bishopAttacks(square, occupied) & (position.pieces(byColor, Bitboard.BISHOP) | queens));
+	}
+
+	/**
+	 * Calcula de uma vez todas as casas atacadas pelas peças da cor informada.
+	 */
+	public static long attackedSquares(Bitboard position, int color) {
+		return attackedSquares(position, color, position.occupied());
+	}
+
+	/**
+	 * Igual a {@link #attackedSquares(Bitboard, int)}, mas com os raios das peças deslizantes
+	 * calculados sobre a ocupação informada (por exemplo, sem o rei adversário).
+	 */
+	public static long attackedSquares(Bitboard position, int color, long occupied) {
+		long pawns = position.pieces(color, Bitboard.PAWN);
+		long attacks = color == Bitboard.WHITE
+				? ((pawns << 7) & ~FILE_H) | ((pawns << 9) & ~FILE_A)
+				: ((pawns >>> 9) & ~FILE_H) | ((pawns >>> 7) & ~FILE_A);
+
+		long pieces = position.pieces(color, Bitboard.KNIGHT);
+		while (pieces != 0L) {
+			attacks |= knightAttacks(Long.numberOfTrailingZeros(pieces));
+			pieces &= pieces - 1;
+		}
+		long queens = position.pieces(color, Bitboard.QUEEN);
+		pieces = position.pieces(color, Bitboard.BISHOP) | queens;
+		while (pieces != 0L) {
+			attacks |= bishopAttacks(Long.numberOfTrailingZeros(pieces), occupied);
+			pieces &= pieces - 1;
+		}
+		pieces = position.pieces(color, Bitboard.ROOK) | queens;
+		while (pieces != 0L) {
+			attacks |= rookAttacks(Long.numberOfTrailingZeros(pieces), occupied);
+			pieces &= pieces - 1;
+		}
+		pieces = position.pieces(color, Bitboard.KING);
+		while (pieces != 0L) {
+			attacks |= kingAttacks(Long.numberOfTrailingZeros(pieces));
+			pieces &= pieces - 1;
+		}
+		return attacks;
+	}
+
+	/**
+	 * Preenche a fatia da casa na tabela com o ataque de cada subconjunto da máscara.
+	 * @return O tamanho da fatia.
+	 */
+	private static int fillTable(int square, long mask, long magic, int shift, boolean rook, long[] table, int offset) {
+		// percorre todos os subconjuntos da máscara (Carry-Rippler)
+		long subset = 0L;
+		do {
+			table[offset + (int)((subset * magic) >>> shift)] = rook
+					? slide(square, subset, 1, 0) | slide(square, subset, -1, 0) | slide(square, subset, 0, 1) | slide(square, subset, 0, -1)
+					: slide(square, subset, 1, 1) | slide(square, subset, 1, -1) | slide(square, subset, -1, 1) | slide(square, subset, -1, -1);
+			subset = (subset - mask) & mask;
+		}
+		while (subset != 0L);
+		return 1 << (64 - shift);
+	}
+
+	private static long slide(int square, long occupied, int rankStep, int fileStep) {
+		long attacks = 0L;
+		int rank = (square >>> 3) + rankStep;
+		int file = (square & 7) + fileStep;
+		while (rank >= 0 && rank < 8 && file >= 0 && file < 8) {
+			long bit = 1L << ((rank << 3) | file);
+			attacks |= bit;
+			if ((occupied & bit) != 0L) {
+				break;
+			}
+			rank += rankStep;
+			file += fileStep;
+		}
+		return attacks;
+	}
+
+}
@@ -0,0 +1,233 @@
+package chess;
+
+import java.util.Arrays;
+
+import boardgame.Position;
+
+/**
+ * Representação da posição em bitboards: doze máscaras de 64 bits (uma por tipo e cor de peça),
+ * mais o lado a jogar, os direitos de roque e a casa de en passant.
+ * As casas são numeradas de a1 = 0 até h8 = 63.
+ */
+public class Bitboard {
+
+	public static final int PAWN = 0;
+	public static final int KNIGHT = 1;
+	public static final int BISHOP = 2;
+	public static final int ROOK = 3;
+	public static final int QUEEN = 4;
+	public static final int KING = 5;
+
+	public static final int WHITE = 0;
+	public static final int BLACK = 1;
+
+	public static final int NO_PIECE = -1;
+	public static final int NO_SQUARE = -1;
+
+	public static final int WHITE_KINGSIDE = 1;
+	public static final int WHITE_QUEENSIDE = 2;
+	public static final int BLACK_KINGSIDE = 4;
+	public static final int BLACK_QUEENSIDE = 8;
+
+	private long[] pieces = new long[12];
+	private long[] colors = new long[2];
+	private long occupied;
+	private int[] mailbox = new int[64];
+
+	private int sideToMove;
+	private int castlingRights;
+	private int enPassantSquare = NO_SQUARE;
+	private long key; // sem o en passant, que getKey() soma só quando a captura é possível
+
+	private long[] attackMaps = new long[2];
+	private boolean[] attackMapValid = new boolean[2];
+
+	public Bitboard() {
+		Arrays.fill(mailbox, NO_PIECE);
+	}
+
+	/**
+	 * Cópia independente de outro bitboard, com a mesma posição, chave e mapas de ataque.
+	 */
+	public Bitboard(Bitboard other) {
+		System.arraycopy(other.pieces, 0, pieces, 0, pieces.length);
+		System.arraycopy(other.colors, 0, colors, 0, colors.length);
+		System.arraycopy(other.mailbox, 0, mailbox, 0, mailbox.length);
+		System.arraycopy(other.attackMaps, 0, attackMaps, 0, attackMaps.length);
+		System.arraycopy(other.attackMapValid, 0, attackMapValid, 0, attackMapValid.length);
+		occupied = other.occupied;
+		sideToMove = other.sideToMove;
+		castlingRights = other.castlingRights;
+		enPassantSquare = other.enPassantSquare;
+		key = other.key;
+	}
+
+	public static int piece(int color, int type) {
+		return color * 6 + type;
+	}
+
+	public static int colorOf(int piece) {
+		return piece < 6 ? WHITE : BLACK;
+	}
+
+	public static int typeOf(int piece) {
+		return piece < 6 ? piece : piece - 6;
+	}
+
+	public static int colorIndex(Color color) {
+		return color == Color.WHITE ? WHITE : BLACK;
+	}
+
+	public static Color color(int colorIndex) {
+		return colorIndex == WHITE ? Color.WHITE : Color.BLACK;
+	}
+
+	public static int square(int row, int column) {
+		return ((7 - row) << 3) | column;
+	}
+
+	public static int square(Position position) {
+		return square(position.getRow(), position.getColumn());
+	}
+
+	public static int row(int square) {
+		return 7 - (square >>> 3);
+	}
+
+	public static int column(int square) {
+		return square & 7;
+	}
+
+	public void put(int piece, int square) {
+		long bit = 1L << square;
+		pieces[piece] |= bit;
+		colors[colorOf(piece)] |= bit;
+		occupied |= bit;
+		mailbox[square] = piece;
+		key ^= Zobrist.pieceSquare(piece, square);
+		invalidateAttackMaps();
+	}
+
+	public void remove(int piece, int square) {
+		long bit = ~(1L << square);
+		pieces[piece] &= bit;
+		colors[colorOf(piece)] &= bit;
+		occupied &= bit;
+		mailbox[square] = NO_PIECE;
+		key ^= Zobrist.pieceSquare(piece, square);
+		invalidateAttackMaps();
+	}
+
+	public int pieceAt(int square) {
+		return mailbox[square];
+	}
+
+	public long pieces(int piece) {
+		return pieces[piece];
+	}
+
+	public long pieces(int color, int type) {
+		return pieces[piece(color, type)];
+	}
+
+	public long occupancy(int color) {
+		return colors[color];
+	}
+
+	public long occupied() {
+		return occupied;
+	}
+
+	public int kingSquare(int color) {
+		long king = pieces[piece(color, KING)];
+		return king == 0L ? NO_SQUARE : Long.numberOfTrailingZeros(king);
+	}
+
+	/**
+	 * Mapa de todas as casas atacadas pela cor informada. Fica guardado até a próxima
+	 * peça ser colocada ou removida, então várias consultas na mesma posição custam um único cálculo.
+	 * O mapa é recalculado inteiro, não atualizado a cada put/remove: com as tabelas mágicas o cálculo
+	 * custa perto de 23 ns, contra uns 140 ns de makeMove e undoMove, e a busca pede no máximo um por nó.
+	 */
+	public long attackMap(int color) {
+		if (!attackMapValid[color]) {
+			attackMaps[color] = Attacks.attackedSquares(this, color);
+			attackMapValid[color] = true;
+		}
+		return attackMaps[color];
+	}
+
+	public boolean isSquareAttacked(int square, int byColor) {
+		if (attackMapValid[byColor]) {
+			return (attackMaps[byColor] & (1L << square)) != 0L;
+		}
+		return Attacks.isSquareAttacked(this, square, byColor);
+	}
+
+	public boolean isInCheck(int color) {
+		int king = kingSquare(color);
+		return king != NO_SQUARE && isSquareAttacked(king, color ^ 1);
+	}
+
+	private void invalidateAttackMaps() {
+		attackMapValid[WHITE] = false;
+		attackMapValid[BLACK] = false;
+	}
+
+	public int getSideToMove() {
+		return sideToMove;
+	}
+
+	public void setSideToMove(int sideToMove) {
+		key ^= Zobrist.sideToMove(this.sideToMove) ^ Zobrist.sideToMove(sideToMove);
+		this.sideToMove = sideToMove;
+	}
+
+	public int getCastlingRights() {
+		return castlingRights;
+	}
+
+	public void setCastlingRights(int castlingRights) {
+		key ^= Zobrist.castling(this.castlingRights) ^ Zobrist.castling(castlingRights);
+		this.castlingRights = castlingRights;
+	}
+
+	public int getEnPassantSquare() {
+		return enPassantSquare;
+	}
+
+	public void setEnPassantSquare(int enPassantSquare) {
+		this.enPassantSquare = enPassantSquare;
+	}
+
+	/**
+	 * Chave de Zobrist da posição, mantida incrementalmente a cada alteração.
+	 * O en passant é somado na leitura e só quando algum peão do lado a jogar pode capturar, para que
+	 * a mesma posição alcançada por ordens de jogadas diferentes tenha a mesma chave.
+	 */
+	public long getKey() {
+		return key ^ enPassantKey();
+	}
+
+	private long enPassantKey() {
+		if (enPassantSquare == NO_SQUARE
+				|| (Attacks.pawnAttacks(sideToMove ^ 1, enPassantSquare) & pieces[piece(sideToMove, PAWN)]) == 0L) {
+			return 0L;
+		}
+		return Zobrist.enPassant(enPassantSquare);
+	}
+
+	/**
+	 * Recalcula a chave do zero; serve para conferir a chave incremental.
+	 */
+	public long computeKey() {
+		long k = Zobrist.sideToMove(sideToMove) ^ Zobrist.castling(castlingRights) ^ enPassantKey();
+		for (int square = 0; square < 64; square++) {
+			if (mailbox[square] != NO_PIECE) {
+				k ^= Zobrist.pieceSquare(mailbox[square], square);
+			}
+		}
+		return k;
+	}
+
+}
@@ -0,0 +1,59 @@
+package chess;
+
+import boardgame.Board;
+import boardgame.Piece;
+import boardgame.Position;
+
+/**
+ * Tabuleiro 8x8 que mantém o {@link Bitboard} sincronizado com a matriz de peças.
+ * Toda peça colocada ou removida passa por aqui, então a matriz continua servindo de visão
+ * por objetos (para a UI e para getPieces()) enquanto as regras consultam as máscaras.
+ */
+public class ChessBoard extends Board {
+
+	private final Bitboard bitboard;
+
+	public ChessBoard() {
+		super(8, 8);
+		bitboard = new Bitboard();
+	}
+
+	/**
+	 * Tabuleiro vazio com uma cópia do bitboard de outro; as peças são recolocadas com {@link #restorePiece}.
+	 */
+	ChessBoard(ChessBoard other) {
+		super(8, 8);
+		bitboard = new Bitboard(other.bitboard);
+	}
+
+	public Bitboard getBitboard() {
+		return bitboard;
+	}
+
+	public ChessPiece piece(int square) {
+		return (ChessPiece)piece(Bitboard.row(square), Bitboard.column(square));
+	}
+
+	@Override
+	public void placePiece(Piece piece, Position position) {
+		super.placePiece(piece, position);
+		bitboard.put(((ChessPiece)piece).getBitboardPiece(), Bitboard.square(position));
+	}
+
+	/**
+	 * Coloca a peça só na matriz, sem alterar o bitboard, que já a tem (usado na cópia da partida).
+	 */
+	void restorePiece(ChessPiece piece, Position position) {
+		super.placePiece(piece, position);
+	}
+
+	@Override
+	public Piece removePiece(Position position) {
+		Piece piece = super.removePiece(position);
+		if (piece != null) {
+			bitboard.remove(((ChessPiece)piece).getBitboardPiece(), Bitboard.square(position));
+		}
+		return piece;
+	}
+
+}
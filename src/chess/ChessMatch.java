@@ -1,10 +1,10 @@
 package chess;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.IntUnaryOperator;
 
-import boardgame.Board;
 import boardgame.Piece;
 import boardgame.Position;
 import chess.pieces.Bishop;
@@ -16,23 +16,154 @@ import chess.pieces.Rook;
 
 public class ChessMatch {
 
+	private static final String FEN_PIECES = "PNBRQKpnbrqk";
+
 	private int turn;
 	private Color currentPlayer;
-	private Board board;
+	private ChessBoard board;
 	private boolean check;
 	private boolean checkMate;
 	private boolean stalemate;
 	private ChessPiece enPassantVulnerable;
 	private ChessPiece promoted;
+	private int halfMoveClock;
 
 	private List<Piece> piecesOnTheBoard = new ArrayList<>();
 	private List<Piece> capturedPieces = new ArrayList<>();
 
+	// criado no primeiro uso: cópias usadas só com makeMove/undoMove (busca) não precisam dele
+	private int[] moves;
+
+	// as pilhas começam vazias e são criadas na primeira jogada, dobrando quando enchem,
+	// para que criar e copiar partidas seja barato
+	private static final int[] NO_INTS = new int[0];
+	private static final ChessPiece[] NO_PIECES = new ChessPiece[0];
+
+	private int[] moveStack = NO_INTS;
+	private Piece[] capturedStack = NO_PIECES;
+	private ChessPiece[] enPassantStack = NO_PIECES;
+	private ChessPiece[] promotedPawnStack = NO_PIECES;
+	private int[] halfMoveClockStack = NO_INTS;
+	private int stackSize;
+
+	// jogadas desfeitas por undo/seek, a próxima no topo; uma jogada nova descarta todas
+	private int[] redoStack = NO_INTS;
+	private int redoSize;
+
+	// criado no primeiro getFen()
+	private StringBuilder fenBuffer;
+	private MatchSnapshot initialPosition;
+	private MoveListener moveListener;
+
+	// o retrato mais recente, trocado inteiro a cada jogada: quem lê de outra thread nunca vê um estado pela metade
+	private volatile MatchSnapshot snapshot;
+	private long snapshotVersion;
+	// há jogadas de replayMove ainda não publicadas
+	private boolean snapshotStale;
+
+	/**
+	 * Avisado de cada jogada aceita pela partida (ex: para gravá-la em um diário), já com a peça da promoção.
+	 */
+	public interface MoveListener {
+		void movePerformed(ChessMatch chessMatch, int move);
+	}
+
 	public ChessMatch() {
-		board = new Board(8, 8);
+		board = new ChessBoard();
 		turn = 1;
 		currentPlayer = Color.WHITE;
 		initialSetup();
+		updatePositionState(Color.WHITE);
+		publishSnapshot();
+		initialPosition = snapshot;
+	}
+
+	/**
+	 * Cria uma partida a partir de uma posição em notação FEN (Forsyth-Edwards Notation).
+	 * @param fen Ex: "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1".
+	 */
+	public ChessMatch(String fen) {
+		board = new ChessBoard();
+		loadFen(fen);
+		publishSnapshot();
+		initialPosition = snapshot;
+	}
+
+	/**
+	 * Cria uma partida a partir de uma posição já em {@link Bitboard} (usado pelo {@link PositionCodec}).
+	 * O bitboard informado só é lido; a partida monta o seu próprio tabuleiro.
+	 */
+	ChessMatch(Bitboard position, int halfMove, int fullMove) {
+		board = new ChessBoard();
+		for (int square = 0; square < 64; square++) {
+			int piece = position.pieceAt(square);
+			if (piece != Bitboard.NO_PIECE) {
+				ChessPiece chessPiece = newPiece(FEN_PIECES.charAt(Bitboard.typeOf(piece)), Bitboard.color(Bitboard.colorOf(piece)));
+				placeNewPiece((char)('a' + Bitboard.column(square)), (square >>> 3) + 1, chessPiece);
+			}
+		}
+		currentPlayer = Bitboard.color(position.getSideToMove());
+		setupState(position.getCastlingRights(), position.getEnPassantSquare(), halfMove, Math.max(1, fullMove));
+		publishSnapshot();
+		initialPosition = snapshot;
+	}
+
+	// usado por copy()
+	private ChessMatch(ChessMatch other) {
+		if (other.promoted != null) {
+			throw new IllegalStateException("The promoted piece must be chosen first");
+		}
+		// o bitboard (posição, chave, roque, en passant) é copiado inteiro; só as peças são recriadas
+		board = new ChessBoard(other.board);
+		Bitboard position = other.board.getBitboard();
+		piecesOnTheBoard = new ArrayList<>(Long.bitCount(position.occupied()));
+		for (long occupied = position.occupied(); occupied != 0; occupied &= occupied - 1) {
+			int square = Long.numberOfTrailingZeros(occupied);
+			ChessPiece piece = other.board.piece(square);
+			ChessPiece copy = copyPiece(piece);
+			board.restorePiece(copy, new Position(Bitboard.row(square), Bitboard.column(square)));
+			piecesOnTheBoard.add(copy);
+			if (piece == other.enPassantVulnerable) {
+				enPassantVulnerable = copy;
+			}
+		}
+		for (Piece piece : other.capturedPieces) {
+			capturedPieces.add(copyPiece((ChessPiece)piece));
+		}
+		turn = other.turn;
+		currentPlayer = other.currentPlayer;
+		check = other.check;
+		checkMate = other.checkMate;
+		stalemate = other.stalemate;
+		halfMoveClock = other.halfMoveClock;
+		// o retrato é imutável e descreve a mesma posição, então é compartilhado em vez de montado de novo
+		if (other.snapshotStale) {
+			snapshotVersion = other.snapshotVersion;
+			publishSnapshot();
+		}
+		else {
+			snapshot = other.snapshot;
+			snapshotVersion = snapshot.getVersion();
+		}
+		initialPosition = snapshot;
+	}
+
+	/**
+	 * Cópia independente da partida na posição atual, para analisar variantes em outra thread. Cada peça é
+	 * recriada no tabuleiro da cópia, e o King e o Pawn ficam ligados à cópia e não à original.
+	 * O histórico não é copiado: a cópia começa na posição atual, então undo e seek só voltam até ela.
+	 * O {@link MoveListener} também não é copiado.
+	 * Custa perto de 1 µs; a maior parte é recriar as peças, que makeMove e undoMove ainda usam.
+	 * @throws IllegalStateException Se há uma promoção esperando a escolha da peça.
+	 */
+	public ChessMatch copy() {
+		return new ChessMatch(this);
+	}
+
+	private ChessPiece copyPiece(ChessPiece piece) {
+		ChessPiece copy = newPiece(FEN_PIECES.charAt(piece.getType()), piece.getColor());
+		copy.setMoveCount(piece.getMoveCount());
+		return copy;
 	}
 
 	public List<Piece> getCapturedPieces() {
@@ -63,10 +194,146 @@ public class ChessMatch {
 		return enPassantVulnerable;
 	}
 
+	/**
+	 * @return A FEN da posição em que a partida começou.
+	 */
+	public String getInitialFen() {
+		return initialPosition.getFen();
+	}
+
+	/**
+	 * @return As jogadas aplicadas desde a posição inicial, codificadas por {@link Move}, da primeira à última.
+	 */
+	public int[] getMoveHistory() {
+		return Arrays.copyOf(moveStack, stackSize);
+	}
+
+	/**
+	 * @return Quantas semi-jogadas foram feitas desde a posição inicial (0 na posição inicial).
+	 */
+	public int getPly() {
+		return stackSize;
+	}
+
+	/**
+	 * @return O tamanho do histórico: as semi-jogadas feitas mais as que podem ser refeitas.
+	 */
+	public int getHistoryLength() {
+		return stackSize + redoSize;
+	}
+
+	public boolean canUndo() {
+		return stackSize > 0;
+	}
+
+	public boolean canRedo() {
+		return redoSize > 0;
+	}
+
+	/**
+	 * Desfaz a última jogada, que pode ser refeita com {@link #redo()}.
+	 * @return A jogada desfeita, codificada por {@link Move}.
+	 */
+	public int undo() {
+		if (!canUndo()) {
+			throw new IllegalStateException("There is no move to undo");
+		}
+		seek(stackSize - 1);
+		return redoStack[redoSize - 1];
+	}
+
+	/**
+	 * Refaz a última jogada desfeita.
+	 * @return A jogada refeita, codificada por {@link Move}.
+	 */
+	public int redo() {
+		if (!canRedo()) {
+			throw new IllegalStateException("There is no move to redo");
+		}
+		seek(stackSize + 1);
+		return moveStack[stackSize - 1];
+	}
+
+	/**
+	 * Vai para a posição depois da semi-jogada informada do histórico (0 é a posição inicial), desfazendo
+	 * ou refazendo jogadas a partir da posição atual. As jogadas intermediárias usam só makeMove/undoMove,
+	 * sem os testes de xeque-mate e afogamento, que são feitos uma vez, na posição final; então ir a qualquer
+	 * ponto de uma partida longa custa só a distância até ele, nunca repetir a partida desde o início.
+	 * Jogadas desfeitas e refeitas não são avisadas ao {@link MoveListener}.
+	 */
+	public void seek(int ply) {
+		if (ply < 0 || ply > getHistoryLength()) {
+			throw new IndexOutOfBoundsException("Ply " + ply + " is not in the history (0 to " + getHistoryLength() + ")");
+		}
+		if (promoted != null) {
+			throw new IllegalStateException("The promoted piece must be chosen first");
+		}
+
+		// depois do mate o turno não avançou: avança aqui para que cada jogada seja uma troca de vez
+		if (checkMate) {
+			turn++;
+			currentPlayer = opponent(currentPlayer);
+		}
+		while (stackSize > ply) {
+			if (redoSize == redoStack.length) {
+				redoStack = Arrays.copyOf(redoStack, Math.max(16, redoSize * 2));
+			}
+			redoStack[redoSize++] = moveStack[stackSize - 1];
+			undoMove();
+			turn--;
+			currentPlayer = opponent(currentPlayer);
+		}
+		while (stackSize < ply) {
+			makeMove(redoStack[--redoSize]);
+			turn++;
+			currentPlayer = opponent(currentPlayer);
+		}
+		updateGameState();
+		publishSnapshot();
+	}
+
 	public ChessPiece getPromoted() {
 		return promoted;
 	}
 
+	/**
+	 * @return O retrato imutável da posição depois da última jogada (ou undo, redo, seek), seguro para ler de
+	 * qualquer thread. Jogadas de makeMove (busca, perft) não publicam retratos, e as de replayMove só em publish().
+	 */
+	public MatchSnapshot getSnapshot() {
+		return snapshot;
+	}
+
+	private void publishSnapshot() {
+		snapshotStale = false;
+		snapshot = new MatchSnapshot(++snapshotVersion, board.getBitboard(), halfMoveClock, getFullMoveNumber(), stackSize, turn, currentPlayer, check, checkMate, stalemate);
+	}
+
+	/**
+	 * Define quem é avisado das jogadas de performChessMove, performMove e replacePromotedPiece.
+	 * Uma promoção só é avisada em replacePromotedPiece, quando a peça escolhida já é conhecida.
+	 * As jogadas de makeMove (busca, perft) não são avisadas.
+	 */
+	public void setMoveListener(MoveListener moveListener) {
+		this.moveListener = moveListener;
+	}
+
+	/**
+	 * Chave de Zobrist de 64 bits da posição atual, mantida incrementalmente a cada jogada.
+	 * Posições iguais (peças, vez, roque e en passant) têm a mesma chave.
+	 */
+	public long getPositionHash() {
+		return board.getBitboard().getKey();
+	}
+
+	/**
+	 * Bitboard da posição atual, para consultas rápidas (geração de jogadas, avaliação).
+	 * Deve ser tratado como somente leitura: alterações devem passar pelas jogadas da partida.
+	 */
+	public Bitboard getBitboard() {
+		return board.getBitboard();
+	}
+
 	public ChessPiece[][] getPieces(){
 		ChessPiece[][] mat = new ChessPiece[board.getRows()][board.getColumns()];
 		for (int r=0; r<board.getRows(); r++) {
@@ -80,20 +347,26 @@ public class ChessMatch {
 	public boolean[][] possibleMoves(ChessPosition sourcePosition) {
 		Position position = sourcePosition.toPosition();
 		validateSourcePosition(position);
-		return board.piece(position).possibleMoves();
+		boolean[][] mat = new boolean[board.getRows()][board.getColumns()];
+		int from = Bitboard.square(position);
+		int count = generateMoves(currentPlayer);
+		for (int i = 0; i < count; i++) {
+			if (Move.from(moves[i]) == from) {
+				int to = Move.to(moves[i]);
+				mat[Bitboard.row(to)][Bitboard.column(to)] = true;
+			}
+		}
+		return mat;
 	}
 
 	public ChessPiece performChessMove(ChessPosition sourcePosition, ChessPosition targetPosition) {
 		Position source = sourcePosition.toPosition();
 		Position target = targetPosition.toPosition();
 		validateSourcePosition(source);
-		validateTargetPosition(source, target);
-		Piece capturedPiece = makeMove(source, target);
-
-		if (testCheck(currentPlayer)) {
-			undoMove(source, target, capturedPiece);
-			throw new ChessException("You can't put yourself in check");
-		}
+		int move = validateTargetPosition(source, target);
+		redoSize = 0;
+		// a peça da promoção é escolhida depois, em replacePromotedPiece
+		Piece capturedPiece = makeMove(Move.encode(Move.from(move), Move.to(move), Move.flags(move) & ~Move.PROMOTION));
 
 		ChessPiece movedPiece = (ChessPiece)board.piece(target);
 
@@ -105,6 +378,64 @@ public class ChessMatch {
 			}
 		}
 
+		finishMove();
+		publishSnapshot();
+		if (promoted == null) {
+			notifyMove(moveStack[stackSize - 1]);
+		}
+		return (ChessPiece)capturedPiece;
+	}
+
+	/**
+	 * Aplica uma jogada já codificada por {@link Move}, com a peça da promoção incluída (ex: lida de um
+	 * arquivo PGN), e atualiza o turno e os indicadores de xeque, xeque-mate e afogamento como performChessMove.
+	 * A jogada não é validada: ela deve ser uma das jogadas legais da posição.
+	 * @return A peça capturada, ou null.
+	 */
+	public ChessPiece performMove(int move) {
+		ChessPiece capturedPiece = applyMove(move);
+		publishSnapshot();
+		notifyMove(move);
+		return capturedPiece;
+	}
+
+	/**
+	 * Igual a {@link #performMove(int)}, mas sem publicar o retrato: {@link #getSnapshot()} continua na posição
+	 * anterior até {@link #publish()}. Para repetir muitas jogadas seguidas (ex: ler um arquivo PGN) sem criar
+	 * um retrato por jogada.
+	 * @return A peça capturada, ou null.
+	 */
+	public ChessPiece replayMove(int move) {
+		ChessPiece capturedPiece = applyMove(move);
+		snapshotStale = true;
+		notifyMove(move);
+		return capturedPiece;
+	}
+
+	/**
+	 * Publica o retrato da posição atual, se alguma jogada de {@link #replayMove(int)} ainda não foi publicada.
+	 */
+	public void publish() {
+		if (snapshotStale) {
+			publishSnapshot();
+		}
+	}
+
+	private ChessPiece applyMove(int move) {
+		redoSize = 0;
+		Piece capturedPiece = makeMove(move);
+		promoted = null;
+		finishMove();
+		return (ChessPiece)capturedPiece;
+	}
+
+	private void notifyMove(int move) {
+		if (moveListener != null) {
+			moveListener.movePerformed(this, move);
+		}
+	}
+
+	private void finishMove() {
 		check = (testCheck(opponent(currentPlayer))) ? true : false;
 
 		if (testCheckMate(opponent(currentPlayer))) {
@@ -114,19 +445,9 @@ public class ChessMatch {
 			nextTurn();
 		}
 
-    if (!checkMate && !hasLegalMoves(currentPlayer) && !testCheck(currentPlayer)) {
+    if (!checkMate && !check && !hasLegalMoves(currentPlayer)) {
     stalemate = true;
     }
-
-		// #specialmove en passant
-		if (movedPiece instanceof Pawn && (target.getRow() == source.getRow() - 2 || target.getRow() == source.getRow() + 2)) {
-			enPassantVulnerable = movedPiece;
-		}
-		else {
-			enPassantVulnerable = null;
-		}
-
-		return (ChessPiece)capturedPiece;
 	}
 
 	public ChessPiece replacePromotedPiece(String type) {
@@ -145,6 +466,14 @@ public class ChessMatch {
 		board.placePiece(newPiece, pos);
 		piecesOnTheBoard.add(newPiece);
 
+		// a jogada foi empilhada sem a peça da promoção: registra agora, para o histórico e para desfazê-la
+		int move = moveStack[stackSize - 1];
+		moveStack[stackSize - 1] = Move.encode(Move.from(move), Move.to(move), Move.flags(move) | Move.PROMOTION, promotionType(type));
+		promotedPawnStack[stackSize - 1] = promoted;
+		promoted = null;
+		publishSnapshot();
+		notifyMove(moveStack[stackSize - 1]);
+
 		return newPiece;
 	}
 
@@ -155,19 +484,38 @@ public class ChessMatch {
 		return new Rook(board, color);
 	}
 
-	private Piece makeMove(Position source, Position target) {
+	private static int promotionType(String type) {
+		if (type.equals("B")) return Bitboard.BISHOP;
+		if (type.equals("N")) return Bitboard.KNIGHT;
+		if (type.equals("Q")) return Bitboard.QUEEN;
+		return Bitboard.ROOK;
+	}
+
+	private ChessPiece newPiece(int type, Color color) {
+		if (type == Bitboard.BISHOP) return new Bishop(board, color);
+		if (type == Bitboard.KNIGHT) return new Knight(board, color);
+		if (type == Bitboard.QUEEN) return new Queen(board, color);
+		return new Rook(board, color);
+	}
+
+	/**
+	 * Aplica uma jogada codificada por {@link Move}, sem validá-la, e empilha o que for preciso para desfazê-la.
+	 * Atualiza o tabuleiro, as listas de peças, o en passant, o roque e a chave da posição,
+	 * mas não o turno nem os indicadores de xeque, que são responsabilidade de performChessMove.
+	 * Usado pela perft e pela busca do motor, que sempre desfazem a jogada com {@link #undoMove()}.
+	 * @return A peça capturada, ou null.
+	 */
+	public Piece makeMove(int move) {
+		int flags = Move.flags(move);
+		Position source = toPosition(Move.from(move));
+		Position target = toPosition(Move.to(move));
 		ChessPiece p = (ChessPiece)board.removePiece(source);
 		p.increaseMoveCount();
 		Piece capturedPiece = board.removePiece(target);
 		board.placePiece(p, target);
 
-		if (capturedPiece != null) {
-			piecesOnTheBoard.remove(capturedPiece);
-			capturedPieces.add(capturedPiece);
-		}
-
 		// #specialmove castling kingside rook
-		if (p instanceof King && target.getColumn() == source.getColumn() + 2) {
+		if (flags == Move.KING_CASTLE) {
 			Position sourceR = new Position(source.getRow(), source.getColumn() + 3);
 			Position targetR = new Position(source.getRow(), source.getColumn() + 1);
 			ChessPiece rook = (ChessPiece)board.removePiece(sourceR);
@@ -176,7 +524,7 @@ public class ChessMatch {
 		}
 
 		// #specialmove castling queenside rook
-		if (p instanceof King && target.getColumn() == source.getColumn() - 2) {
+		if (flags == Move.QUEEN_CASTLE) {
 			Position sourceR = new Position(source.getRow(), source.getColumn() - 4);
 			Position targetR = new Position(source.getRow(), source.getColumn() - 1);
 			ChessPiece rook = (ChessPiece)board.removePiece(sourceR);
@@ -185,37 +533,72 @@ public class ChessMatch {
 		}
 
 		// #specialmove en passant
-		if (p instanceof Pawn) {
-			if (source.getColumn() != target.getColumn() && capturedPiece == null) {
-				Position pawnPosition;
-				if (p.getColor() == Color.WHITE) {
-					pawnPosition = new Position(target.getRow() + 1, target.getColumn());
-				}
-				else {
-					pawnPosition = new Position(target.getRow() - 1, target.getColumn());
-				}
-				capturedPiece = board.removePiece(pawnPosition);
-				capturedPieces.add(capturedPiece);
-				piecesOnTheBoard.remove(capturedPiece);
-			}
+		if (flags == Move.EN_PASSANT) {
+			capturedPiece = board.removePiece(new Position(source.getRow(), target.getColumn()));
+		}
+
+		if (capturedPiece != null) {
+			piecesOnTheBoard.remove(capturedPiece);
+			capturedPieces.add(capturedPiece);
+		}
+
+		// #specialmove promotion
+		ChessPiece promotedPawn = null;
+		if (Move.isPromotion(move)) {
+			promotedPawn = p;
+			board.removePiece(target);
+			piecesOnTheBoard.remove(p);
+			ChessPiece newPiece = newPiece(Move.promotion(move), p.getColor());
+			board.placePiece(newPiece, target);
+			piecesOnTheBoard.add(newPiece);
 		}
 
+		pushState(move, capturedPiece, promotedPawn);
+		halfMoveClock = (capturedPiece != null || p instanceof Pawn) ? 0 : halfMoveClock + 1;
+		enPassantVulnerable = (flags == Move.DOUBLE_PAWN_PUSH) ? p : null;
+		updatePositionState(opponent(p.getColor()));
 		return capturedPiece;
 	}
 
-	private void undoMove(Position source, Position target, Piece capturedPiece) {
+	/**
+	 * Desfaz a última jogada aplicada por {@link #makeMove(int)}.
+	 */
+	public void undoMove() {
+		stackSize--;
+		int move = moveStack[stackSize];
+		Piece capturedPiece = capturedStack[stackSize];
+		ChessPiece promotedPawn = promotedPawnStack[stackSize];
+		enPassantVulnerable = enPassantStack[stackSize];
+		halfMoveClock = halfMoveClockStack[stackSize];
+		capturedStack[stackSize] = null;
+		promotedPawnStack[stackSize] = null;
+		enPassantStack[stackSize] = null;
+
+		int flags = Move.flags(move);
+		Position source = toPosition(Move.from(move));
+		Position target = toPosition(Move.to(move));
 		ChessPiece p = (ChessPiece)board.removePiece(target);
+
+		// #specialmove promotion
+		if (promotedPawn != null) {
+			piecesOnTheBoard.remove(p);
+			piecesOnTheBoard.add(promotedPawn);
+			p = promotedPawn;
+		}
+
 		p.decreaseMoveCount();
 		board.placePiece(p, source);
 
 		if (capturedPiece != null) {
-			board.placePiece(capturedPiece, target);
-			capturedPieces.remove(capturedPiece);
+			// #specialmove en passant
+			Position capturedPosition = (flags == Move.EN_PASSANT) ? new Position(source.getRow(), target.getColumn()) : target;
+			board.placePiece(capturedPiece, capturedPosition);
+			capturedPieces.remove(capturedPieces.size() - 1);
 			piecesOnTheBoard.add(capturedPiece);
 		}
 
 		// #specialmove castling kingside rook
-		if (p instanceof King && target.getColumn() == source.getColumn() + 2) {
+		if (flags == Move.KING_CASTLE) {
 			Position sourceR = new Position(source.getRow(), source.getColumn() + 3);
 			Position targetR = new Position(source.getRow(), source.getColumn() + 1);
 			ChessPiece rook = (ChessPiece)board.removePiece(targetR);
@@ -224,7 +607,7 @@ public class ChessMatch {
 		}
 
 		// #specialmove castling queenside rook
-		if (p instanceof King && target.getColumn() == source.getColumn() - 2) {
+		if (flags == Move.QUEEN_CASTLE) {
 			Position sourceR = new Position(source.getRow(), source.getColumn() - 4);
 			Position targetR = new Position(source.getRow(), source.getColumn() - 1);
 			ChessPiece rook = (ChessPiece)board.removePiece(targetR);
@@ -232,20 +615,28 @@ public class ChessMatch {
 			rook.decreaseMoveCount();
 		}
 
-		// #specialmove en passant
-		if (p instanceof Pawn) {
-			if (source.getColumn() != target.getColumn() && capturedPiece == enPassantVulnerable) {
-				ChessPiece pawn = (ChessPiece)board.removePiece(target);
-				Position pawnPosition;
-				if (p.getColor() == Color.WHITE) {
-					pawnPosition = new Position(3, target.getColumn());
-				}
-				else {
-					pawnPosition = new Position(4, target.getColumn());
-				}
-				board.placePiece(pawn, pawnPosition);
-			}
+		updatePositionState(p.getColor());
+	}
+
+	private void pushState(int move, Piece capturedPiece, ChessPiece promotedPawn) {
+		if (stackSize == moveStack.length) {
+			int length = Math.max(16, stackSize * 2);
+			moveStack = Arrays.copyOf(moveStack, length);
+			capturedStack = Arrays.copyOf(capturedStack, length);
+			enPassantStack = Arrays.copyOf(enPassantStack, length);
+			promotedPawnStack = Arrays.copyOf(promotedPawnStack, length);
+			halfMoveClockStack = Arrays.copyOf(halfMoveClockStack, length);
 		}
+		moveStack[stackSize] = move;
+		capturedStack[stackSize] = capturedPiece;
+		enPassantStack[stackSize] = enPassantVulnerable;
+		promotedPawnStack[stackSize] = promotedPawn;
+		halfMoveClockStack[stackSize] = halfMoveClock;
+		stackSize++;
+	}
+
+	private static Position toPosition(int square) {
+		return new Position(Bitboard.row(square), Bitboard.column(square));
 	}
 
 	private void validateSourcePosition(Position position) {
@@ -255,15 +646,46 @@ public class ChessMatch {
 		if (currentPlayer != ((ChessPiece)board.piece(position)).getColor()) {
 			throw new ChessException("The chosen piece is not yours");
 		}
-		if (!board.piece(position).isThereAnyPossibleMove()) {
+		if (findMove(Bitboard.square(position), -1) == Move.NONE) {
 			throw new ChessException("There is no possible moves for the chosen piece");
 		}
 	}
 
-	private void validateTargetPosition(Position source, Position target) {
-		if (!board.piece(source).possibleMove(target)) {
+	private int validateTargetPosition(Position source, Position target) {
+		int from = Bitboard.square(source);
+		int to = Bitboard.square(target);
+		if (findMove(from, to) == Move.NONE) {
 			throw new ChessException("The chosen piece can't move to target position");
 		}
+		int move = findLegalMove(from, to);
+		if (move == Move.NONE) {
+			throw new ChessException("You can't put yourself in check");
+		}
+		return move;
+	}
+
+	private int generateMoves(Color color) {
+		return MoveGenerator.generatePseudoLegalMoves(board.getBitboard(), Bitboard.colorIndex(color), moveBuffer());
+	}
+
+	/**
+	 * Procura, entre as jogadas do jogador atual, uma que saia de "from" e chegue em "to" (-1 aceita qualquer destino).
+	 */
+	private int findMove(int from, int to) {
+		return findMove(from, to, generateMoves(currentPlayer));
+	}
+
+	private int findLegalMove(int from, int to) {
+		return findMove(from, to, MoveGenerator.generateLegalMoves(board.getBitboard(), Bitboard.colorIndex(currentPlayer), moves));
+	}
+
+	private int findMove(int from, int to, int count) {
+		for (int i = 0; i < count; i++) {
+			if (Move.from(moves[i]) == from && (to == -1 || Move.to(moves[i]) == to)) {
+				return moves[i];
+			}
+		}
+		return Move.NONE;
 	}
 
 	private void nextTurn() {
@@ -275,26 +697,44 @@ public class ChessMatch {
 		return (color == Color.WHITE) ? Color.BLACK : Color.WHITE;
 	}
 
-	private ChessPiece king(Color color) {
-		List<Piece> list = piecesOnTheBoard.stream().filter(x -> ((ChessPiece)x).getColor() == color).collect(Collectors.toList());
-		for (Piece p : list) {
-			if (p instanceof King) {
-				return (ChessPiece)p;
-			}
+	/**
+	 * Copia para o bitboard o estado que não está nas máscaras de peças:
+	 * lado a jogar, direitos de roque (derivados do moveCount do rei e das torres) e casa de en passant.
+	 */
+	private void updatePositionState(Color sideToMove) {
+		Bitboard bitboard = board.getBitboard();
+		bitboard.setSideToMove(Bitboard.colorIndex(sideToMove));
+
+		int castlingRights = 0;
+		if (castlingAvailable(4, 7)) castlingRights |= Bitboard.WHITE_KINGSIDE;
+		if (castlingAvailable(4, 0)) castlingRights |= Bitboard.WHITE_QUEENSIDE;
+		if (castlingAvailable(60, 63)) castlingRights |= Bitboard.BLACK_KINGSIDE;
+		if (castlingAvailable(60, 56)) castlingRights |= Bitboard.BLACK_QUEENSIDE;
+		bitboard.setCastlingRights(castlingRights);
+
+		if (enPassantVulnerable != null) {
+			int pawnSquare = Bitboard.square(enPassantVulnerable.getChessPosition().toPosition());
+			bitboard.setEnPassantSquare(enPassantVulnerable.getColor() == Color.WHITE ? pawnSquare - 8 : pawnSquare + 8);
+		}
+		else {
+			bitboard.setEnPassantSquare(Bitboard.NO_SQUARE);
 		}
-		throw new IllegalStateException("There is no " + color + " king on the board");
+	}
+
+	private boolean castlingAvailable(int kingSquare, int rookSquare) {
+		ChessPiece king = board.piece(kingSquare);
+		ChessPiece rook = board.piece(rookSquare);
+		return king instanceof King && king.getMoveCount() == 0
+				&& rook instanceof Rook && rook.getMoveCount() == 0 && rook.getColor() == king.getColor();
 	}
 
 	private boolean testCheck(Color color) {
-		Position kingPosition = king(color).getChessPosition().toPosition();
-		List<Piece> opponentPieces = piecesOnTheBoard.stream().filter(x -> ((ChessPiece)x).getColor() == opponent(color)).collect(Collectors.toList());
-		for (Piece p : opponentPieces) {
-			boolean[][] mat = p.possibleMoves();
-			if (mat[kingPosition.getRow()][kingPosition.getColumn()]) {
-				return true;
-			}
+		Bitboard bitboard = board.getBitboard();
+		int kingSquare = bitboard.kingSquare(Bitboard.colorIndex(color));
+		if (kingSquare == Bitboard.NO_SQUARE) {
+			throw new IllegalStateException("There is no " + color + " king on the board");
 		}
-		return false;
+		return bitboard.isSquareAttacked(kingSquare, Bitboard.colorIndex(opponent(color)));
 	}
 
 	private boolean testCheckMate(Color color) {
@@ -304,28 +744,197 @@ public class ChessMatch {
     return !hasLegalMoves(color);
   }
 
+	private int[] moveBuffer() {
+		if (moves == null) {
+			moves = new int[MoveGenerator.MAX_MOVES];
+		}
+		return moves;
+	}
+
   private boolean hasLegalMoves(Color color) {
-    List<Piece> list = piecesOnTheBoard.stream().filter(x -> ((ChessPiece)x).getColor() == color).collect(Collectors.toList());
-    for (Piece p : list) {
-        boolean[][] mat = p.possibleMoves();
-        for (int i=0; i<board.getRows(); i++) {
-            for (int j=0; j<board.getColumns(); j++) {
-                if (mat[i][j]) {
-                    Position source = ((ChessPiece)p).getChessPosition().toPosition();
-                    Position target = new Position(i, j);
-                    Piece capturedPiece = makeMove(source, target);
-                    boolean testCheck = testCheck(color);
-                    undoMove(source, target, capturedPiece);
-                    if (!testCheck) {
-                        return true;
-                    }
-                }
-            }
-        }
-    }
-    return false;
+    return MoveGenerator.hasLegalMoves(board.getBitboard(), Bitboard.colorIndex(color), moveBuffer());
   }
 
+	private void loadFen(String fen) {
+		String[] fields = fen.trim().split("\\s+");
+		if (fields.length < 2) {
+			throw new ChessException("Invalid FEN: " + fen);
+		}
+
+		String[] ranks = fields[0].split("/");
+		if (ranks.length != 8) {
+			throw new ChessException("Invalid FEN piece placement: " + fields[0]);
+		}
+		for (int r = 0; r < 8; r++) {
+			int c = 0;
+			for (char ch : ranks[r].toCharArray()) {
+				if (ch >= '1' && ch <= '8') {
+					c += ch - '0';
+					continue;
+				}
+				if (c > 7) {
+					throw new ChessException("Invalid FEN piece placement: " + fields[0]);
+				}
+				Color color = Character.isUpperCase(ch) ? Color.WHITE : Color.BLACK;
+				placeNewPiece((char)('a' + c), 8 - r, newPiece(Character.toUpperCase(ch), color));
+				c++;
+			}
+			if (c != 8) {
+				throw new ChessException("Invalid FEN piece placement: " + fields[0]);
+			}
+		}
+
+		if (fields[1].equals("w")) {
+			currentPlayer = Color.WHITE;
+		}
+		else if (fields[1].equals("b")) {
+			currentPlayer = Color.BLACK;
+		}
+		else {
+			throw new ChessException("Invalid FEN side to move: " + fields[1]);
+		}
+
+		String castling = fields.length > 2 ? fields[2] : "-";
+		int castlingRights = 0;
+		if (castling.indexOf('K') >= 0) castlingRights |= Bitboard.WHITE_KINGSIDE;
+		if (castling.indexOf('Q') >= 0) castlingRights |= Bitboard.WHITE_QUEENSIDE;
+		if (castling.indexOf('k') >= 0) castlingRights |= Bitboard.BLACK_KINGSIDE;
+		if (castling.indexOf('q') >= 0) castlingRights |= Bitboard.BLACK_QUEENSIDE;
+
+		// #specialmove en passant
+		String enPassant = fields.length > 3 ? fields[3] : "-";
+		int enPassantSquare = Bitboard.NO_SQUARE;
+		if (!enPassant.equals("-")) {
+			if (enPassant.length() != 2) {
+				throw new ChessException("Invalid FEN en passant square: " + enPassant);
+			}
+			int column = enPassant.charAt(0) - 'a';
+			if ((enPassant.charAt(1) != '3' && enPassant.charAt(1) != '6') || column < 0 || column > 7) {
+				throw new ChessException("Invalid FEN en passant square: " + enPassant);
+			}
+			enPassantSquare = (enPassant.charAt(1) - '1') * 8 + column;
+		}
+
+		int halfMove = 0;
+		if (fields.length > 4) {
+			try {
+				halfMove = Integer.parseInt(fields[4]);
+			}
+			catch (NumberFormatException e) {
+				throw new ChessException("Invalid FEN half-move clock: " + fields[4]);
+			}
+			if (halfMove < 0) {
+				throw new ChessException("Invalid FEN half-move clock: " + fields[4]);
+			}
+		}
+
+		int fullMove = 1;
+		if (fields.length > 5) {
+			try {
+				fullMove = Math.max(1, Integer.parseInt(fields[5]));
+			}
+			catch (NumberFormatException e) {
+				throw new ChessException("Invalid FEN move number: " + fields[5]);
+			}
+		}
+		setupState(castlingRights, enPassantSquare, halfMove, fullMove);
+	}
+
+	/**
+	 * Completa a montagem de uma posição cujas peças e jogador atual já foram definidos
+	 * (a partir de uma FEN ou de um {@link Bitboard}), validando a posição e calculando xeque, mate e afogamento.
+	 * @throws ChessException Se a posição não pode ocorrer em uma partida: sem exatamente um rei por cor,
+	 * com peões na primeira ou na última fileira, ou com o rei de quem não joga em xeque.
+	 */
+	private void setupState(int castlingRights, int enPassantSquare, int halfMove, int fullMove) {
+		validatePosition();
+
+		// o roque é derivado do moveCount do rei e das torres, então quem perdeu o direito é marcado como já movido
+		markMovedUnless((castlingRights & (Bitboard.WHITE_KINGSIDE | Bitboard.WHITE_QUEENSIDE)) != 0, 4);
+		markMovedUnless((castlingRights & Bitboard.WHITE_KINGSIDE) != 0, 7);
+		markMovedUnless((castlingRights & Bitboard.WHITE_QUEENSIDE) != 0, 0);
+		markMovedUnless((castlingRights & (Bitboard.BLACK_KINGSIDE | Bitboard.BLACK_QUEENSIDE)) != 0, 60);
+		markMovedUnless((castlingRights & Bitboard.BLACK_KINGSIDE) != 0, 63);
+		markMovedUnless((castlingRights & Bitboard.BLACK_QUEENSIDE) != 0, 56);
+
+		// peões fora da casa inicial não podem mais avançar duas casas
+		for (Piece p : piecesOnTheBoard) {
+			ChessPiece piece = (ChessPiece)p;
+			int rank = piece.getChessPosition().getRow();
+			if (piece instanceof Pawn && ((piece.getColor() == Color.WHITE && rank != 2) || (piece.getColor() == Color.BLACK && rank != 7))) {
+				piece.increaseMoveCount();
+			}
+		}
+
+		// #specialmove en passant: o peão vulnerável está logo à frente da casa pulada
+		if (enPassantSquare != Bitboard.NO_SQUARE) {
+			ChessPiece pawn = board.piece(enPassantSquare < 32 ? enPassantSquare + 8 : enPassantSquare - 8);
+			if (pawn instanceof Pawn && pawn.getColor() != currentPlayer) {
+				enPassantVulnerable = pawn;
+			}
+		}
+
+		halfMoveClock = halfMove;
+		turn = 2 * fullMove - (currentPlayer == Color.WHITE ? 1 : 0);
+
+		updatePositionState(currentPlayer);
+		updateGameState();
+	}
+
+	// sem isso, o rei de quem não joga poderia ser capturado, e a partida ficaria sem um dos reis
+	private void validatePosition() {
+		Bitboard bitboard = board.getBitboard();
+		if (Long.bitCount(bitboard.pieces(Bitboard.WHITE, Bitboard.KING)) != 1 || Long.bitCount(bitboard.pieces(Bitboard.BLACK, Bitboard.KING)) != 1) {
+			throw new ChessException("Invalid position: each side must have exactly one king");
+		}
+		if (((bitboard.pieces(Bitboard.WHITE, Bitboard.PAWN) | bitboard.pieces(Bitboard.BLACK, Bitboard.PAWN)) & 0xFF000000000000FFL) != 0L) {
+			throw new ChessException("Invalid position: pawns on the first or last rank");
+		}
+		int opponent = Bitboard.colorIndex(opponent(currentPlayer));
+		if (Attacks.isSquareAttacked(bitboard, bitboard.kingSquare(opponent), opponent ^ 1)) {
+			throw new ChessException("Invalid position: the side not to move is in check");
+		}
+	}
+
+	/**
+	 * Calcula o xeque, o xeque-mate e o afogamento do jogador atual em uma posição montada sem performChessMove.
+	 */
+	private void updateGameState() {
+		checkMate = false;
+		stalemate = false;
+		check = testCheck(currentPlayer);
+		if (!hasLegalMoves(currentPlayer)) {
+			if (check) {
+				// como em uma partida jogada: o turno e o jogador atual ficam com quem deu o mate
+				checkMate = true;
+				currentPlayer = opponent(currentPlayer);
+				turn--;
+			}
+			else {
+				stalemate = true;
+			}
+		}
+	}
+
+	private void markMovedUnless(boolean castlingRight, int square) {
+		ChessPiece piece = board.piece(square);
+		if (!castlingRight && piece != null && piece.getMoveCount() == 0) {
+			piece.increaseMoveCount();
+		}
+	}
+
+	private ChessPiece newPiece(char type, Color color) {
+		switch (type) {
+			case 'P': return new Pawn(board, color);
+			case 'N': return new Knight(board, color);
+			case 'B': return new Bishop(board, color);
+			case 'R': return new Rook(board, color);
+			case 'Q': return new Queen(board, color);
+			case 'K': return new King(board, color);
+			default: throw new ChessException("Invalid FEN piece: " + type);
+		}
+	}
+
 	private void placeNewPiece (char column, int row, ChessPiece piece) {
 		board.placePiece(piece, new ChessPosition(column, row).toPosition());
 		piecesOnTheBoard.add(piece);
@@ -336,102 +945,132 @@ public class ChessMatch {
         placeNewPiece('b', 1, new Knight(board, Color.WHITE));
         placeNewPiece('c', 1, new Bishop(board, Color.WHITE));
         placeNewPiece('d', 1, new Queen(board, Color.WHITE));
-        placeNewPiece('e', 1, new King(board, Color.WHITE, this));
+        placeNewPiece('e', 1, new King(board, Color.WHITE));
         placeNewPiece('f', 1, new Bishop(board, Color.WHITE));
         placeNewPiece('g', 1, new Knight(board, Color.WHITE));
         placeNewPiece('h', 1, new Rook(board, Color.WHITE));
-        placeNewPiece('a', 2, new Pawn(board, Color.WHITE, this));
-        placeNewPiece('b', 2, new Pawn(board, Color.WHITE, this));
-        placeNewPiece('c', 2, new Pawn(board, Color.WHITE, this));
-        placeNewPiece('d', 2, new Pawn(board, Color.WHITE, this));
-        placeNewPiece('e', 2, new Pawn(board, Color.WHITE, this));
-        placeNewPiece('f', 2, new Pawn(board, Color.WHITE, this));
-        placeNewPiece('g', 2, new Pawn(board, Color.WHITE, this));
-        placeNewPiece('h', 2, new Pawn(board, Color.WHITE, this));
+        placeNewPiece('a', 2, new Pawn(board, Color.WHITE));
+        placeNewPiece('b', 2, new Pawn(board, Color.WHITE));
+        placeNewPiece('c', 2, new Pawn(board, Color.WHITE));
+        placeNewPiece('d', 2, new Pawn(board, Color.WHITE));
+        placeNewPiece('e', 2, new Pawn(board, Color.WHITE));
+        placeNewPiece('f', 2, new Pawn(board, Color.WHITE));
+        placeNewPiece('g', 2, new Pawn(board, Color.WHITE));
+        placeNewPiece('h', 2, new Pawn(board, Color.WHITE));
 
         placeNewPiece('a', 8, new Rook(board, Color.BLACK));
         placeNewPiece('b', 8, new Knight(board, Color.BLACK));
         placeNewPiece('c', 8, new Bishop(board, Color.BLACK));
         placeNewPiece('d', 8, new Queen(board, Color.BLACK));
-        placeNewPiece('e', 8, new King(board, Color.BLACK, this));
+        placeNewPiece('e', 8, new King(board, Color.BLACK));
         placeNewPiece('f', 8, new Bishop(board, Color.BLACK));
         placeNewPiece('g', 8, new Knight(board, Color.BLACK));
         placeNewPiece('h', 8, new Rook(board, Color.BLACK));
-        placeNewPiece('a', 7, new Pawn(board, Color.BLACK, this));
-        placeNewPiece('b', 7, new Pawn(board, Color.BLACK, this));
-        placeNewPiece('c', 7, new Pawn(board, Color.BLACK, this));
-        placeNewPiece('d', 7, new Pawn(board, Color.BLACK, this));
-        placeNewPiece('e', 7, new Pawn(board, Color.BLACK, this));
-        placeNewPiece('f', 7, new Pawn(board, Color.BLACK, this));
-        placeNewPiece('g', 7, new Pawn(board, Color.BLACK, this));
-        placeNewPiece('h', 7, new Pawn(board, Color.BLACK, this));
-	}
-
-/**
- * Gera a string de notação FEN (Forsyth-Edwards Notation) para a posição atual do jogo.
- * NOTA: A lógica de roque e o contador de semi-jogadas estão simplificados por enquanto.
- * @return A string FEN representando o estado atual do jogo.
- */
+        placeNewPiece('a', 7, new Pawn(board, Color.BLACK));
+        placeNewPiece('b', 7, new Pawn(board, Color.BLACK));
+        placeNewPiece('c', 7, new Pawn(board, Color.BLACK));
+        placeNewPiece('d', 7, new Pawn(board, Color.BLACK));
+        placeNewPiece('e', 7, new Pawn(board, Color.BLACK));
+        placeNewPiece('f', 7, new Pawn(board, Color.BLACK));
+        placeNewPiece('g', 7, new Pawn(board, Color.BLACK));
+        placeNewPiece('h', 7, new Pawn(board, Color.BLACK));
+	}
+
+	/**
+	 * Gera a string de notação FEN (Forsyth-Edwards Notation) para a posição atual do jogo.
+	 * O texto é montado em um buffer da própria partida, reaproveitado a cada chamada.
+	 * @return A string FEN representando o estado atual do jogo.
+	 */
 	public String getFen() {
-    	StringBuilder sb = new StringBuilder();
-    
-    	// 1ª parte: Posição das peças
-    	sb.append(getFenPiecePlacement());
-    
-    	// 2ª parte: De quem é a vez
-    	sb.append(currentPlayer == Color.WHITE ? " w" : " b");
-
-    	// 3ª parte: Disponibilidade de roque (simplificado por agora)
-    	sb.append(" -");
-
-    	// 4ª parte: Quadrado de captura En Passant
-    	if (enPassantVulnerable != null) {
-        	sb.append(" ").append(enPassantVulnerable.getChessPosition().toString());
-    		} else {
-        	sb.append(" -");
-    	}
-    
-    	// 5ª parte: Contador de semi-jogadas para a regra dos 50 movimentos (simplificado)
-    	sb.append(" 0");
-    
-    	// 6ª parte: Número do lance atual
-    	sb.append(" ").append(turn);
-    
-    	return sb.toString();
+		if (fenBuffer == null) {
+			fenBuffer = new StringBuilder(90);
+		}
+		fenBuffer.setLength(0);
+		return appendFen(fenBuffer).toString();
+	}
+
+	/**
+	 * Escreve a FEN da posição atual no final do buffer informado, sem criar objetos intermediários.
+	 * Útil para quem grava muitas posições seguidas (ex: um arquivo de posições), reaproveitando o mesmo buffer.
+	 * @return O próprio buffer.
+	 */
+	public StringBuilder appendFen(StringBuilder sb) {
+		Bitboard bitboard = board.getBitboard();
+		return appendFen(sb, bitboard::pieceAt, bitboard.getSideToMove(), bitboard.getCastlingRights(), bitboard.getEnPassantSquare(),
+				halfMoveClock, getFullMoveNumber());
+	}
+
+	/**
+	 * Escreve a FEN de uma posição descrita pelas partes informadas (usado também pelo {@link MatchSnapshot}).
+	 */
+	static StringBuilder appendFen(StringBuilder sb, IntUnaryOperator pieceAt, int sideToMove, int rights, int enPassantSquare,
+			int halfMoveClock, int fullMoveNumber) {
+		// 1ª parte: Posição das peças, da 8ª fileira para a 1ª; peças brancas em maiúsculas, pretas em minúsculas
+		for (int rank = 7; rank >= 0; rank--) {
+			int emptySquaresCounter = 0;
+			for (int file = 0; file < 8; file++) {
+				int piece = pieceAt.applyAsInt(rank * 8 + file);
+				if (piece == Bitboard.NO_PIECE) {
+					emptySquaresCounter++;
+				}
+				else {
+					if (emptySquaresCounter > 0) {
+						sb.append((char)('0' + emptySquaresCounter));
+						emptySquaresCounter = 0;
+					}
+					sb.append(FEN_PIECES.charAt(piece));
+				}
+			}
+			if (emptySquaresCounter > 0) {
+				sb.append((char)('0' + emptySquaresCounter));
+			}
+			if (rank > 0) {
+				sb.append('/');
+			}
+		}
+
+		// 2ª parte: De quem é a vez
+		sb.append(sideToMove == Bitboard.WHITE ? " w " : " b ");
+
+		// 3ª parte: Disponibilidade de roque
+		if (rights == 0) {
+			sb.append('-');
+		}
+		else {
+			if ((rights & Bitboard.WHITE_KINGSIDE) != 0) sb.append('K');
+			if ((rights & Bitboard.WHITE_QUEENSIDE) != 0) sb.append('Q');
+			if ((rights & Bitboard.BLACK_KINGSIDE) != 0) sb.append('k');
+			if ((rights & Bitboard.BLACK_QUEENSIDE) != 0) sb.append('q');
+		}
+
+		// 4ª parte: Quadrado de captura En Passant (a casa pulada pelo peão, não a casa do peão)
+		if (enPassantSquare != Bitboard.NO_SQUARE) {
+			sb.append(' ').append((char)('a' + (enPassantSquare & 7))).append((char)('1' + (enPassantSquare >>> 3)));
+		}
+		else {
+			sb.append(" -");
+		}
+
+		// 5ª parte: Contador de semi-jogadas para a regra dos 50 movimentos
+		sb.append(' ').append(halfMoveClock);
+
+		// 6ª parte: Número do lance atual (o turno conta semi-jogadas e não avança depois do xeque-mate)
+		sb.append(' ').append(fullMoveNumber);
+
+		return sb;
+	}
+
+	/**
+	 * @return O número do lance atual, como na FEN: começa em 1 e aumenta depois de cada jogada das pretas.
+	 */
+	public int getFullMoveNumber() {
+		return ((checkMate ? turn + 1 : turn) + 1) / 2;
 	}
 
 	/**
-	 * Método auxiliar que gera a primeira parte da string FEN, representando a posição das peças.
-	 * @return Uma string como "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR".
+	 * @return Quantas semi-jogadas se passaram desde a última captura ou movimento de peão (regra dos 50 movimentos).
 	 */
-	private String getFenPiecePlacement() {
-    	StringBuilder sb = new StringBuilder();
-    	for (int r = 0; r < board.getRows(); r++) {
-        	int emptySquaresCounter = 0;
-        	for (int c = 0; c < board.getColumns(); c++) {
-            	ChessPiece piece = (ChessPiece) board.piece(r, c);
-            	if (piece == null) {
-               		emptySquaresCounter++;
-            	} else {
-                	if (emptySquaresCounter > 0) {
-                    	sb.append(emptySquaresCounter);
-                    	emptySquaresCounter = 0;
-                	}
-                	// Peças brancas em maiúsculas, peças pretas em minúsculas
-                	if (piece.getColor() == Color.WHITE) {
-                    	sb.append(piece.toString().toUpperCase());
-                	} else {
-                    	sb.append(piece.toString().toLowerCase());
-                	}
-            	}
-        	}
-        	if (emptySquaresCounter > 0) {
-            	sb.append(emptySquaresCounter);
-        	}
-        	if (r < board.getRows() - 1) {
-            	sb.append("/");
-        	}
-    	}
-    	return sb.toString();
+	public int getHalfMoveClock() {
+		return halfMoveClock;
 	}
 }
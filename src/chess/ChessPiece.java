@@ -2,7 +2,6 @@ package chess;
 
 import boardgame.Board;
 import boardgame.Piece;
-import boardgame.Position;
 
 public abstract class ChessPiece extends Piece {
 	
@@ -29,14 +28,50 @@ public abstract class ChessPiece extends Piece {
 	public void decreaseMoveCount() {
 		moveCount--;
 	}
+
+	void setMoveCount(int moveCount) {
+		this.moveCount = moveCount;
+	}
+	
+	public abstract int getType();
+	
+	public int getBitboardPiece() {
+		return Bitboard.piece(Bitboard.colorIndex(color), getType());
+	}
 	
 	public ChessPosition getChessPosition() {
 		return ChessPosition.fromPosition(position);
 	}
 	
-	protected boolean isThereOpponentPiece(Position position) {
-		ChessPiece p = (ChessPiece)getBoard().piece(position);
-		return p != null && p.getColor() != color;
+	/**
+	 * @return O bitboard do tabuleiro da peça; peças de xadrez sempre ficam num {@link ChessBoard}.
+	 */
+	protected Bitboard getBitboard() {
+		return ((ChessBoard)getBoard()).getBitboard();
+	}
+
+	protected int getSquare() {
+		return Bitboard.square(position);
+	}
+
+	/**
+	 * Casas para onde a peça pode ir, segundo o {@link MoveGenerator}: jogadas pseudo-legais (ainda podem
+	 * deixar o próprio rei em xeque), com roque, en passant e promoção. É a mesma geração usada pela partida,
+	 * então as regras ficam em um só lugar.
+	 */
+	@Override
+	public boolean[][] possibleMoves() {
+		boolean[][] mat = new boolean[getBoard().getRows()][getBoard().getColumns()];
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		int from = getSquare();
+		int count = MoveGenerator.generatePseudoLegalMoves(getBitboard(), Bitboard.colorIndex(color), moves);
+		for (int i = 0; i < count; i++) {
+			if (Move.from(moves[i]) == from) {
+				int to = Move.to(moves[i]);
+				mat[Bitboard.row(to)][Bitboard.column(to)] = true;
+			}
+		}
+		return mat;
 	}
 
 }
@@ -0,0 +1,104 @@
+package chess;
+
+/**
+ * Retrato imutável de uma partida, publicado pelo {@link ChessMatch} depois de cada jogada.
+ * Pode ser lido por qualquer thread sem trava (ex: a thread da interface desenhando o tabuleiro enquanto
+ * o motor analisa a FEN em outra), porque nunca muda depois de criado; a próxima jogada publica outro.
+ */
+public final class MatchSnapshot {
+
+	private final long version;
+	private final byte[] pieces = new byte[64];
+	private final int sideToMove;
+	private final int castlingRights;
+	private final int enPassantSquare;
+	private final int halfMoveClock;
+	private final int fullMoveNumber;
+	private final int ply;
+	private final int turn;
+	private final Color currentPlayer;
+	private final boolean check;
+	private final boolean checkMate;
+	private final boolean stalemate;
+
+	// montada na primeira leitura: a String é imutável, então threads que a montem ao mesmo tempo só repetem o trabalho
+	private String fen;
+
+	MatchSnapshot(long version, Bitboard position, int halfMoveClock, int fullMoveNumber, int ply, int turn, Color currentPlayer, boolean check, boolean checkMate, boolean stalemate) {
+		this.version = version;
+		for (int square = 0; square < 64; square++) {
+			pieces[square] = (byte)position.pieceAt(square);
+		}
+		sideToMove = position.getSideToMove();
+		castlingRights = position.getCastlingRights();
+		enPassantSquare = position.getEnPassantSquare();
+		this.halfMoveClock = halfMoveClock;
+		this.fullMoveNumber = fullMoveNumber;
+		this.ply = ply;
+		this.turn = turn;
+		this.currentPlayer = currentPlayer;
+		this.check = check;
+		this.checkMate = checkMate;
+		this.stalemate = stalemate;
+	}
+
+	/**
+	 * @return Número do retrato na partida; aumenta a cada publicação, então versões iguais são o mesmo retrato.
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * @param square Casa no formato do {@link Bitboard} (a1 = 0, h8 = 63).
+	 * @return A peça na casa (cor * 6 + tipo, veja {@link Bitboard}) ou {@link Bitboard#NO_PIECE}.
+	 */
+	public int pieceAt(int square) {
+		return pieces[square];
+	}
+
+	/**
+	 * @return A peça na linha e coluna do tabuleiro, como em {@link ChessMatch#getPieces()} (linha 0 = 8ª fileira).
+	 */
+	public int pieceAt(int row, int column) {
+		return pieces[Bitboard.square(row, column)];
+	}
+
+	public String getFen() {
+		String result = fen;
+		if (result == null) {
+			result = ChessMatch.appendFen(new StringBuilder(90), this::pieceAt, sideToMove, castlingRights, enPassantSquare,
+					halfMoveClock, fullMoveNumber).toString();
+			fen = result;
+		}
+		return result;
+	}
+
+	/**
+	 * @return Quantas semi-jogadas tinham sido feitas desde a posição inicial.
+	 */
+	public int getPly() {
+		return ply;
+	}
+
+	public int getTurn() {
+		return turn;
+	}
+
+	public Color getCurrentPlayer() {
+		return currentPlayer;
+	}
+
+	public boolean getCheck() {
+		return check;
+	}
+
+	public boolean getCheckMate() {
+		return checkMate;
+	}
+
+	public boolean getStalemate() {
+		return stalemate;
+	}
+
+}
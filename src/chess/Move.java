@@ -0,0 +1,77 @@
+package chess;
+
+/**
+ * Codificação de uma jogada em um único int:
+ * bits 0-5 casa de origem, bits 6-11 casa de destino, bits 12-15 flags e bits 16-18 peça da promoção.
+ */
+public final class Move {
+
+	public static final int NONE = 0;
+
+	public static final int QUIET = 0;
+	public static final int DOUBLE_PAWN_PUSH = 1;
+	public static final int KING_CASTLE = 2;
+	public static final int QUEEN_CASTLE = 3;
+	public static final int CAPTURE = 4;
+	public static final int EN_PASSANT = 5;
+	public static final int PROMOTION = 8;
+	public static final int PROMOTION_CAPTURE = 12;
+
+	private static final String PROMOTION_CHARS = "pnbrqk";
+
+	private Move() {
+	}
+
+	public static int encode(int from, int to, int flags) {
+		return from | (to << 6) | (flags << 12);
+	}
+
+	public static int encode(int from, int to, int flags, int promotion) {
+		return from | (to << 6) | (flags << 12) | (promotion << 16);
+	}
+
+	public static int from(int move) {
+		return move & 63;
+	}
+
+	public static int to(int move) {
+		return (move >>> 6) & 63;
+	}
+
+	public static int flags(int move) {
+		return (move >>> 12) & 15;
+	}
+
+	public static int promotion(int move) {
+		return (move >>> 16) & 7;
+	}
+
+	public static boolean isCapture(int move) {
+		return (flags(move) & CAPTURE) != 0;
+	}
+
+	public static boolean isPromotion(int move) {
+		return (flags(move) & PROMOTION) != 0;
+	}
+
+	public static boolean isCastle(int move) {
+		int flags = flags(move);
+		return flags == KING_CASTLE || flags == QUEEN_CASTLE;
+	}
+
+	public static String squareName(int square) {
+		return "" + (char)('a' + Bitboard.column(square)) + (char)('1' + (square >>> 3));
+	}
+
+	/**
+	 * @return A jogada em notação de coordenadas longas (ex: "e2e4", "e7e8q").
+	 */
+	public static String toUci(int move) {
+		String uci = squareName(from(move)) + squareName(to(move));
+		if (isPromotion(move)) {
+			uci += PROMOTION_CHARS.charAt(promotion(move));
+		}
+		return uci;
+	}
+
+}
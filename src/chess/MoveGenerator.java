@@ -0,0 +1,251 @@
+package chess;
+
+/**
+ * Gerador de jogadas sobre o {@link Bitboard}. As jogadas de um lado inteiro são escritas,
+ * já codificadas por {@link Move}, em um buffer fornecido por quem chama, sem alocar nada.
+ */
+public final class MoveGenerator {
+
+	public static final int MAX_MOVES = 256;
+
+	private MoveGenerator() {
+	}
+
+	/**
+	 * Gera as jogadas pseudo-legais (que ainda podem deixar o próprio rei em xeque) da cor informada.
+	 * @param moves Buffer com pelo menos {@link #MAX_MOVES} posições.
+	 * @return A quantidade de jogadas escritas no buffer.
+	 */
+	public static int generatePseudoLegalMoves(Bitboard position, int color, int[] moves) {
+		long own = position.occupancy(color);
+		int count = generatePawnMoves(position, color, -1L, 0L, Bitboard.NO_SQUARE, false, moves, 0);
+		count = generatePieceMoves(position, color, ~own, 0L, Bitboard.NO_SQUARE, moves, count);
+
+		long kings = position.pieces(color, Bitboard.KING);
+		while (kings != 0L) {
+			int from = Long.numberOfTrailingZeros(kings);
+			kings &= kings - 1;
+			count = addMoves(moves, count, from, Attacks.kingAttacks(from) & ~own, position.occupancy(color ^ 1));
+		}
+
+		long attacked = position.attackMap(color ^ 1);
+		if ((position.pieces(color, Bitboard.KING) & attacked) != 0L) {
+			return count;
+		}
+		return generateCastlingMoves(position, color, attacked, moves, count);
+	}
+
+	/**
+	 * Gera somente as jogadas legais da cor informada, sem mexer no tabuleiro: as peças cravadas,
+	 * a máscara de xeque e as casas proibidas para o rei são calculadas antes e filtram cada jogada.
+	 * @param moves Buffer com pelo menos {@link #MAX_MOVES} posições.
+	 * @return A quantidade de jogadas escritas no buffer.
+	 */
+	public static int generateLegalMoves(Bitboard position, int color, int[] moves) {
+		int king = position.kingSquare(color);
+		if (king == Bitboard.NO_SQUARE) {
+			return generatePseudoLegalMoves(position, color, moves);
+		}
+		int opponent = color ^ 1;
+		long occupied = position.occupied();
+		long own = position.occupancy(color);
+
+		long kingDanger = Attacks.attackedSquares(position, opponent, occupied & ~(1L << king));
+		int count = addMoves(moves, 0, king, Attacks.kingAttacks(king) & ~own & ~kingDanger, position.occupancy(opponent));
+
+		long checkers = Attacks.attackersTo(position, king, opponent, occupied);
+		if ((checkers & (checkers - 1)) != 0L) {
+			return count;
+		}
+		long checkMask = -1L;
+		if (checkers != 0L) {
+			checkMask = checkers | Attacks.between(king, Long.numberOfTrailingZeros(checkers));
+		}
+		long pinned = pinnedPieces(position, color, king);
+
+		count = generatePawnMoves(position, color, checkMask, pinned, king, true, moves, count);
+		count = generatePieceMoves(position, color, ~own & checkMask, pinned, king, moves, count);
+		if (checkers != 0L) {
+			return count;
+		}
+		return generateCastlingMoves(position, color, kingDanger, moves, count);
+	}
+
+	/**
+	 * @return true se a cor informada tem pelo menos uma jogada legal.
+	 */
+	public static boolean hasLegalMoves(Bitboard position, int color, int[] moves) {
+		return generateLegalMoves(position, color, moves) > 0;
+	}
+
+	private static long pinnedPieces(Bitboard position, int color, int king) {
+		int opponent = color ^ 1;
+		long occupied = position.occupied();
+		long queens = position.pieces(opponent, Bitboard.QUEEN);
+		long snipers = (Attacks.rookAttacks(king, 0L) & (position.pieces(opponent, Bitboard.ROOK) | queens))
+				| (Attacks.bishopAttacks(king, 0L) & (position.pieces(opponent, Bitboard.BISHOP) | queens));
+		long pinned = 0L;
+		while (snipers != 0L) {
+			int sniper = Long.numberOfTrailingZeros(snipers);
+			snipers &= snipers - 1;
+			long blockers = Attacks.between(king, sniper) & occupied;
+			if (blockers != 0L && (blockers & (blockers - 1)) == 0L) {
+				pinned |= blockers & position.occupancy(color);
+			}
+		}
+		return pinned;
+	}
+
+	private static int generatePieceMoves(Bitboard position, int color, long targets, long pinned, int king, int[] moves, int count) {
+		long enemy = position.occupancy(color ^ 1);
+		long occupied = position.occupied();
+
+		long pieces = position.pieces(color, Bitboard.KNIGHT) & ~pinned;
+		while (pieces != 0L) {
+			int from = Long.numberOfTrailingZeros(pieces);
+			pieces &= pieces - 1;
+			count = addMoves(moves, count, from, Attacks.knightAttacks(from) & targets, enemy);
+		}
+		pieces = position.pieces(color, Bitboard.BISHOP);
+		while (pieces != 0L) {
+			int from = Long.numberOfTrailingZeros(pieces);
+			pieces &= pieces - 1;
+			count = addMoves(moves, count, from, Attacks.bishopAttacks(from, occupied) & targets & pinRay(pinned, king, from), enemy);
+		}
+		pieces = position.pieces(color, Bitboard.ROOK);
+		while (pieces != 0L) {
+			int from = Long.numberOfTrailingZeros(pieces);
+			pieces &= pieces - 1;
+			count = addMoves(moves, count, from, Attacks.rookAttacks(from, occupied) & targets & pinRay(pinned, king, from), enemy);
+		}
+		pieces = position.pieces(color, Bitboard.QUEEN);
+		while (pieces != 0L) {
+			int from = Long.numberOfTrailingZeros(pieces);
+			pieces &= pieces - 1;
+			count = addMoves(moves, count, from, Attacks.queenAttacks(from, occupied) & targets & pinRay(pinned, king, from), enemy);
+		}
+		return count;
+	}
+
+	/**
+	 * Uma peça cravada só pode andar sobre a linha que liga o rei ao atacante.
+	 */
+	private static long pinRay(long pinned, int king, int from) {
+		return (pinned & (1L << from)) == 0L ? -1L : Attacks.line(king, from);
+	}
+
+	private static int generatePawnMoves(Bitboard position, int color, long checkMask, long pinned, int king, boolean legal, int[] moves, int count) {
+		long enemy = position.occupancy(color ^ 1);
+		long occupied = position.occupied();
+		int forward = color == Bitboard.WHITE ? 8 : -8;
+		int startRank = color == Bitboard.WHITE ? 1 : 6;
+		// a casa de en passant só vale para quem joga agora (possibleMoves também gera para o outro lado)
+		int epSquare = color == position.getSideToMove() ? position.getEnPassantSquare() : Bitboard.NO_SQUARE;
+		long pawns = position.pieces(color, Bitboard.PAWN);
+		while (pawns != 0L) {
+			int from = Long.numberOfTrailingZeros(pawns);
+			pawns &= pawns - 1;
+			long allowed = checkMask & pinRay(pinned, king, from);
+
+			int to = from + forward;
+			if (to >= 0 && to < 64 && (occupied & (1L << to)) == 0L) {
+				if ((allowed & (1L << to)) != 0L) {
+					count = addPawnMove(moves, count, from, to, Move.QUIET);
+				}
+				int doubleTo = to + forward;
+				if ((from >>> 3) == startRank && (occupied & (1L << doubleTo)) == 0L && (allowed & (1L << doubleTo)) != 0L) {
+					moves[count++] = Move.encode(from, doubleTo, Move.DOUBLE_PAWN_PUSH);
+				}
+			}
+
+			long attacks = Attacks.pawnAttacks(color, from);
+			long captures = attacks & enemy & allowed;
+			while (captures != 0L) {
+				int target = Long.numberOfTrailingZeros(captures);
+				captures &= captures - 1;
+				count = addPawnMove(moves, count, from, target, Move.CAPTURE);
+			}
+
+			// #specialmove en passant
+			if (epSquare != Bitboard.NO_SQUARE && (attacks & (1L << epSquare)) != 0L
+					&& (!legal || isEnPassantLegal(position, color, king, from, epSquare))) {
+				moves[count++] = Move.encode(from, epSquare, Move.EN_PASSANT);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * O en passant tira duas peças da mesma fileira de uma vez, então a verificação é feita
+	 * refazendo os raios a partir do rei com a ocupação que existiria depois da captura.
+	 */
+	private static boolean isEnPassantLegal(Bitboard position, int color, int king, int from, int epSquare) {
+		int opponent = color ^ 1;
+		int capturedSquare = color == Bitboard.WHITE ? epSquare - 8 : epSquare + 8;
+		long occupied = (position.occupied() ^ (1L << from) ^ (1L << capturedSquare)) | (1L << epSquare);
+		long queens = position.pieces(opponent, Bitboard.QUEEN);
+		if ((Attacks.rookAttacks(king, occupied) & (position.pieces(opponent, Bitboard.ROOK) | queens)) != 0L) {
+			return false;
+		}
+		if ((Attacks.bishopAttacks(king, occupied) & (position.pieces(opponent, Bitboard.BISHOP) | queens)) != 0L) {
+			return false;
+		}
+		if ((Attacks.knightAttacks(king) & position.pieces(opponent, Bitboard.KNIGHT)) != 0L) {
+			return false;
+		}
+		long pawns = position.pieces(opponent, Bitboard.PAWN) & ~(1L << capturedSquare);
+		return (Attacks.pawnAttacks(color, king) & pawns) == 0L;
+	}
+
+	private static int addPawnMove(int[] moves, int count, int from, int to, int flags) {
+		// #specialmove promotion
+		if (to >= 56 || to < 8) {
+			moves[count++] = Move.encode(from, to, flags | Move.PROMOTION, Bitboard.QUEEN);
+			moves[count++] = Move.encode(from, to, flags | Move.PROMOTION, Bitboard.ROOK);
+			moves[count++] = Move.encode(from, to, flags | Move.PROMOTION, Bitboard.BISHOP);
+			moves[count++] = Move.encode(from, to, flags | Move.PROMOTION, Bitboard.KNIGHT);
+		}
+		else {
+			moves[count++] = Move.encode(from, to, flags);
+		}
+		return count;
+	}
+
+	/**
+	 * Roque: o rei não pode estar em xeque (verificado por quem chama) nem passar por casa atacada.
+	 * @param attacked Casas atacadas pelo adversário.
+	 */
+	private static int generateCastlingMoves(Bitboard position, int color, long attacked, int[] moves, int count) {
+		int rights = position.getCastlingRights();
+		int kingSide = color == Bitboard.WHITE ? Bitboard.WHITE_KINGSIDE : Bitboard.BLACK_KINGSIDE;
+		int queenSide = color == Bitboard.WHITE ? Bitboard.WHITE_QUEENSIDE : Bitboard.BLACK_QUEENSIDE;
+		if ((rights & (kingSide | queenSide)) == 0) {
+			return count;
+		}
+		int king = color == Bitboard.WHITE ? 4 : 60;
+		long occupied = position.occupied();
+
+		// #specialmove castling kingside rook
+		if ((rights & kingSide) != 0 && (occupied & (3L << (king + 1))) == 0L
+				&& (attacked & (3L << (king + 1))) == 0L) {
+			moves[count++] = Move.encode(king, king + 2, Move.KING_CASTLE);
+		}
+
+		// #specialmove castling queenside rook
+		if ((rights & queenSide) != 0 && (occupied & (7L << (king - 3))) == 0L
+				&& (attacked & (3L << (king - 2))) == 0L) {
+			moves[count++] = Move.encode(king, king - 2, Move.QUEEN_CASTLE);
+		}
+		return count;
+	}
+
+	private static int addMoves(int[] moves, int count, int from, long targets, long enemy) {
+		while (targets != 0L) {
+			int to = Long.numberOfTrailingZeros(targets);
+			targets &= targets - 1;
+			moves[count++] = Move.encode(from, to, (enemy & (1L << to)) != 0L ? Move.CAPTURE : Move.QUIET);
+		}
+		return count;
+	}
+
+}
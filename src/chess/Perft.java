@@ -0,0 +1,105 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Perft: conta as folhas da árvore de jogadas legais até uma profundidade, usando o próprio
+ * makeMove/undoMove do {@link ChessMatch}. Os totais conhecidos de posições de teste servem
+ * para conferir a geração de jogadas, o roque, o en passant e a promoção.
+ */
+public final class Perft {
+
+	private Perft() {
+	}
+
+	public static long perft(ChessMatch chessMatch, int depth) {
+		if (depth <= 0) {
+			return 1L;
+		}
+		return count(chessMatch, depth, new int[depth + 1][MoveGenerator.MAX_MOVES]);
+	}
+
+	/**
+	 * Perft separado por jogada da raiz, na ordem em que as jogadas foram geradas.
+	 * @return Mapa jogada (ex: "e2e4") -> quantidade de folhas abaixo dela.
+	 */
+	public static Map<String, Long> divide(ChessMatch chessMatch, int depth) {
+		Map<String, Long> result = new LinkedHashMap<>();
+		int[][] buffers = new int[Math.max(depth, 1) + 1][MoveGenerator.MAX_MOVES];
+		int[] moves = buffers[depth];
+		int count = MoveGenerator.generateLegalMoves(chessMatch.getBitboard(), chessMatch.getBitboard().getSideToMove(), moves);
+		for (int i = 0; i < count; i++) {
+			chessMatch.makeMove(moves[i]);
+			result.put(Move.toUci(moves[i]), depth <= 1 ? 1L : count(chessMatch, depth - 1, buffers));
+			chessMatch.undoMove();
+		}
+		return result;
+	}
+
+	/**
+	 * Igual a {@link #divide(ChessMatch, int)}, mas cada jogada da raiz é explorada em uma
+	 * partida independente, criada a partir do FEN, em uma tarefa do pool informado.
+	 */
+	public static Map<String, Long> divide(String fen, int depth, ForkJoinPool pool) {
+		ChessMatch root = new ChessMatch(fen);
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		int count = MoveGenerator.generateLegalMoves(root.getBitboard(), root.getBitboard().getSideToMove(), moves);
+
+		List<RootMoveTask> tasks = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			tasks.add(new RootMoveTask(fen, moves[i], depth - 1));
+		}
+		for (RootMoveTask task : tasks) {
+			pool.execute(task);
+		}
+
+		Map<String, Long> result = new LinkedHashMap<>();
+		for (RootMoveTask task : tasks) {
+			result.put(Move.toUci(task.move), task.join());
+		}
+		return result;
+	}
+
+	private static long count(ChessMatch chessMatch, int depth, int[][] buffers) {
+		Bitboard bitboard = chessMatch.getBitboard();
+		int[] moves = buffers[depth];
+		int count = MoveGenerator.generateLegalMoves(bitboard, bitboard.getSideToMove(), moves);
+		if (depth == 1) {
+			return count;
+		}
+		long nodes = 0L;
+		for (int i = 0; i < count; i++) {
+			chessMatch.makeMove(moves[i]);
+			nodes += count(chessMatch, depth - 1, buffers);
+			chessMatch.undoMove();
+		}
+		return nodes;
+	}
+
+	private static class RootMoveTask extends RecursiveTask<Long> {
+		private static final long serialVersionUID = 1L;
+
+		private final String fen;
+		private final int move;
+		private final int depth;
+
+		RootMoveTask(String fen, int move, int depth) {
+			this.fen = fen;
+			this.move = move;
+			this.depth = depth;
+		}
+
+		@Override
+		protected Long compute() {
+			ChessMatch chessMatch = new ChessMatch(fen);
+			chessMatch.makeMove(move);
+			return perft(chessMatch, depth);
+		}
+	}
+
+}
@@ -0,0 +1,153 @@
+package chess;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Codificação binária compacta de uma posição, com tamanho fixo de {@link #SIZE} bytes,
+ * para guardar muitas posições ou enviá-las entre processos sem o custo de gerar e interpretar FEN.
+ *
+ * Formato:
+ * <pre>
+ *  0-7   máscara de ocupação (bit n = casa n, a1 = 0), na ordem de bytes do buffer
+ *  8-23  código de 4 bits de cada peça (cor * 6 + tipo), na ordem das casas ocupadas; a primeira no nibble baixo
+ *  24    lado a jogar (bit 0) e direitos de roque (bits 1-4)
+ *  25    coluna do en passant (0-7), ou 8 se não houver
+ *  26    relógio de semi-jogadas (limitado a 255)
+ *  27-28 número do lance (sem sinal), na ordem de bytes do buffer
+ *  29-31 reservados (zero)
+ * </pre>
+ */
+public final class PositionCodec {
+
+	public static final int SIZE = 32;
+
+	private static final int PIECES_OFFSET = 8;
+	private static final int STATE_OFFSET = 24;
+	private static final int EN_PASSANT_OFFSET = 25;
+	private static final int HALF_MOVE_OFFSET = 26;
+	private static final int FULL_MOVE_OFFSET = 27;
+
+	private static final int NO_EN_PASSANT = 8;
+
+	private PositionCodec() {
+	}
+
+	/**
+	 * Escreve a posição atual da partida na posição atual do buffer, que avança {@link #SIZE} bytes.
+	 */
+	public static void encode(ChessMatch chessMatch, ByteBuffer buffer) {
+		encode(chessMatch.getBitboard(), chessMatch.getHalfMoveClock(), chessMatch.getFullMoveNumber(), buffer);
+	}
+
+	/**
+	 * Escreve a posição do bitboard, com os contadores informados, na posição atual do buffer.
+	 */
+	public static void encode(Bitboard position, int halfMoveClock, int fullMoveNumber, ByteBuffer buffer) {
+		int start = buffer.position();
+		if (buffer.remaining() < SIZE) {
+			throw new IllegalArgumentException("Buffer has " + buffer.remaining() + " bytes left, " + SIZE + " needed");
+		}
+		long occupied = position.occupied();
+		if (Long.bitCount(occupied) > 32) {
+			throw new ChessException("Cannot encode a position with more than 32 pieces");
+		}
+		buffer.putLong(start, occupied);
+
+		int offset = start + PIECES_OFFSET;
+		int pair = 0;
+		boolean high = false;
+		while (occupied != 0L) {
+			int square = Long.numberOfTrailingZeros(occupied);
+			occupied &= occupied - 1;
+			if (high) {
+				buffer.put(offset++, (byte)(pair | position.pieceAt(square) << 4));
+			}
+			else {
+				pair = position.pieceAt(square);
+			}
+			high = !high;
+		}
+		if (high) {
+			buffer.put(offset++, (byte)pair);
+		}
+		while (offset < start + STATE_OFFSET) {
+			buffer.put(offset++, (byte)0);
+		}
+
+		int enPassantSquare = position.getEnPassantSquare();
+		buffer.put(start + STATE_OFFSET, (byte)(position.getSideToMove() | position.getCastlingRights() << 1));
+		buffer.put(start + EN_PASSANT_OFFSET, (byte)(enPassantSquare == Bitboard.NO_SQUARE ? NO_EN_PASSANT : Bitboard.column(enPassantSquare)));
+		buffer.put(start + HALF_MOVE_OFFSET, (byte)Math.min(255, halfMoveClock));
+		buffer.putShort(start + FULL_MOVE_OFFSET, (short)Math.min(0xFFFF, fullMoveNumber));
+		for (int i = FULL_MOVE_OFFSET + 2; i < SIZE; i++) {
+			buffer.put(start + i, (byte)0);
+		}
+		buffer.position(start + SIZE);
+	}
+
+	/**
+	 * Lê uma posição da posição atual do buffer, que avança {@link #SIZE} bytes, e monta uma partida com ela.
+	 */
+	public static ChessMatch decode(ByteBuffer buffer) {
+		int start = buffer.position();
+		Bitboard position = decodeBitboard(buffer);
+		return new ChessMatch(position, getHalfMoveClock(buffer, start), getFullMoveNumber(buffer, start));
+	}
+
+	/**
+	 * Igual a {@link #decode(ByteBuffer)}, mas só monta o {@link Bitboard}, sem as peças e o tabuleiro da partida:
+	 * é o caminho rápido para quem só precisa consultar a posição (ex: avaliar ou gerar jogadas).
+	 */
+	public static Bitboard decodeBitboard(ByteBuffer buffer) {
+		int start = buffer.position();
+		if (buffer.remaining() < SIZE) {
+			throw new IllegalArgumentException("Buffer has " + buffer.remaining() + " bytes left, " + SIZE + " needed");
+		}
+		Bitboard position = new Bitboard();
+		long occupied = buffer.getLong(start);
+		if (Long.bitCount(occupied) > 32) {
+			throw new ChessException("Invalid encoded position: more than 32 pieces");
+		}
+		int index = 0;
+		while (occupied != 0L) {
+			int square = Long.numberOfTrailingZeros(occupied);
+			occupied &= occupied - 1;
+			int piece = (buffer.get(start + PIECES_OFFSET + (index >>> 1)) >>> ((index & 1) << 2)) & 15;
+			if (piece > 11) {
+				throw new ChessException("Invalid encoded position: piece code " + piece);
+			}
+			position.put(piece, square);
+			index++;
+		}
+
+		int state = buffer.get(start + STATE_OFFSET);
+		int sideToMove = state & 1;
+		position.setSideToMove(sideToMove);
+		position.setCastlingRights((state >>> 1) & 15);
+		int enPassantFile = buffer.get(start + EN_PASSANT_OFFSET);
+		if (enPassantFile != NO_EN_PASSANT) {
+			if (enPassantFile < 0 || enPassantFile > 7) {
+				throw new ChessException("Invalid encoded position: en passant file " + enPassantFile);
+			}
+			// a casa pulada fica na 6ª fileira se as brancas jogam, na 3ª se as pretas jogam
+			position.setEnPassantSquare((sideToMove == Bitboard.WHITE ? 40 : 16) + enPassantFile);
+		}
+		buffer.position(start + SIZE);
+		return position;
+	}
+
+	/**
+	 * @return O relógio de semi-jogadas da posição codificada que começa no índice informado, sem mover o buffer.
+	 */
+	public static int getHalfMoveClock(ByteBuffer buffer, int index) {
+		return buffer.get(index + HALF_MOVE_OFFSET) & 0xFF;
+	}
+
+	/**
+	 * @return O número do lance da posição codificada que começa no índice informado, sem mover o buffer.
+	 */
+	public static int getFullMoveNumber(ByteBuffer buffer, int index) {
+		return buffer.getShort(index + FULL_MOVE_OFFSET) & 0xFFFF;
+	}
+
+}
@@ -0,0 +1,70 @@
+package chess;
+
+/**
+ * Chaves de Zobrist: um número aleatório de 64 bits para cada peça em cada casa, para cada
+ * combinação de direitos de roque, para cada coluna de en passant e para a vez das pretas.
+ * A chave de uma posição é o XOR das chaves de tudo o que está presente nela.
+ * A semente é fixa, então a mesma posição tem sempre a mesma chave entre execuções.
+ */
+public final class Zobrist {
+
+	private static final long[][] PIECE_SQUARE = new long[12][64];
+	private static final long[] CASTLING = new long[16];
+	private static final long[] EN_PASSANT_FILE = new long[8];
+	private static final long BLACK_TO_MOVE;
+
+	static {
+		long seed = 0x5EED_C0FF_EE15_CAFEL;
+		for (int piece = 0; piece < 12; piece++) {
+			for (int square = 0; square < 64; square++) {
+				seed += 0x9E3779B97F4A7C15L;
+				PIECE_SQUARE[piece][square] = mix(seed);
+			}
+		}
+		long[] rights = new long[4];
+		for (int i = 0; i < 4; i++) {
+			seed += 0x9E3779B97F4A7C15L;
+			rights[i] = mix(seed);
+		}
+		for (int mask = 0; mask < 16; mask++) {
+			for (int i = 0; i < 4; i++) {
+				if ((mask & (1 << i)) != 0) {
+					CASTLING[mask] ^= rights[i];
+				}
+			}
+		}
+		for (int file = 0; file < 8; file++) {
+			seed += 0x9E3779B97F4A7C15L;
+			EN_PASSANT_FILE[file] = mix(seed);
+		}
+		seed += 0x9E3779B97F4A7C15L;
+		BLACK_TO_MOVE = mix(seed);
+	}
+
+	private Zobrist() {
+	}
+
+	public static long pieceSquare(int piece, int square) {
+		return PIECE_SQUARE[piece][square];
+	}
+
+	public static long castling(int castlingRights) {
+		return CASTLING[castlingRights];
+	}
+
+	public static long enPassant(int square) {
+		return square == Bitboard.NO_SQUARE ? 0L : EN_PASSANT_FILE[square & 7];
+	}
+
+	public static long sideToMove(int color) {
+		return color == Bitboard.BLACK ? BLACK_TO_MOVE : 0L;
+	}
+
+	// splitmix64
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+}
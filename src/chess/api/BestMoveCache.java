@@ -0,0 +1,287 @@
+package chess.api;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache de melhores jogadas na frente de um motor (ex: {@code StockfishAPI::getBestMove}).
+ * A chave é a FEN sem os contadores de jogadas, então a mesma posição vinda de partidas diferentes
+ * é reaproveitada; uma resposta calculada com profundidade maior também atende pedidos mais rasos.
+ * As entradas ficam em uma LRU limitada na memória e em um arquivo de texto só de acréscimos,
+ * relido na inicialização. O arquivo é reescrito só com as entradas da LRU quando passa do dobro
+ * da capacidade em linhas e em {@link #close()}, para não crescer sem limite.
+ */
+public class BestMoveCache implements Closeable {
+
+    /**
+     * Quem calcula a jogada quando ela não está no cache.
+     */
+    @FunctionalInterface
+    public interface Engine {
+        String getBestMove(String fen, int depth);
+    }
+
+    private static final class Entry {
+        final String move;
+        final int depth;
+
+        Entry(String move, int depth) {
+            this.move = move;
+            this.depth = depth;
+        }
+    }
+
+    private final Engine engine;
+    private final Map<String, Entry> entries;
+    private final int capacity;
+    private final Path file;
+    private BufferedWriter writer;
+    private int fileLines;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Cache apenas em memória.
+     * @param capacity A quantidade máxima de posições guardadas na memória.
+     */
+    public BestMoveCache(Engine engine, int capacity) {
+        this(engine, capacity, null);
+    }
+
+    /**
+     * @param capacity A quantidade máxima de posições guardadas na memória.
+     * @param file O arquivo onde as respostas são acrescentadas; se já existir, é carregado. Pode ser null.
+     */
+    public BestMoveCache(Engine engine, int capacity, Path file) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Cache capacity must be at least 1: " + capacity);
+        }
+        this.engine = engine;
+        this.capacity = capacity;
+        this.file = file;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+        if (file != null) {
+            load();
+        }
+    }
+
+    /**
+     * Devolve a jogada guardada para a posição, com a mesma profundidade ou maior;
+     * senão consulta o motor e guarda a resposta.
+     * @return A melhor jogada no formato de notação de coordenadas longas, ou null se o motor não devolver uma.
+     */
+    public String getBestMove(String fen, int depth) {
+        String cached = lookup(fen, depth);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        String move = engine.getBestMove(fen, depth);
+        if (move != null) {
+            put(fen, depth, move);
+        }
+        return move;
+    }
+
+    /**
+     * @return A jogada guardada para a posição com profundidade maior ou igual à pedida, ou null.
+     */
+    public synchronized String lookup(String fen, int depth) {
+        Entry entry = entries.get(normalize(fen));
+        return entry != null && entry.depth >= depth ? entry.move : null;
+    }
+
+    /**
+     * Guarda a jogada, a menos que já exista uma resposta mais profunda para a mesma posição.
+     */
+    public synchronized void put(String fen, int depth, String move) {
+        String key = normalize(fen);
+        Entry old = entries.get(key);
+        if (old != null && old.depth >= depth) {
+            return;
+        }
+        entries.put(key, new Entry(move, depth));
+        if (file != null) {
+            append(key, depth, move);
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return A fração das consultas atendidas pelo cache, entre 0 e 1.
+     */
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Remove da FEN o relógio de meias-jogadas e o número do lance, que não mudam a melhor jogada.
+     * A casa de en passant só fica quando algum peão de quem joga pode capturar nela, como na chave de
+     * Zobrist: a FEN a traz depois de todo avanço duplo, e a mesma posição teria duas chaves.
+     */
+    static String normalize(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        StringBuilder sb = new StringBuilder(fields[0]);
+        for (int i = 1; i < Math.min(4, fields.length); i++) {
+            if (i == 3 && !enPassantPossible(fields[0], fields[1], fields[3])) {
+                sb.append(" -");
+            } else {
+                sb.append(' ').append(fields[i]);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static boolean enPassantPossible(String placement, String sideToMove, String square) {
+        if (square.length() != 2) {
+            return false;
+        }
+        int file = square.charAt(0) - 'a';
+        boolean white = sideToMove.equals("w");
+        // o peão que captura fica na fileira do peão que avançou, ao lado dele
+        int rank = white ? 5 : 4;
+        char pawn = white ? 'P' : 'p';
+        return pieceAt(placement, file - 1, rank) == pawn || pieceAt(placement, file + 1, rank) == pawn;
+    }
+
+    // A peça da FEN na coluna (0 = a) e fileira (1 a 8) informadas, ou ' ' se a casa estiver vazia
+    private static char pieceAt(String placement, int file, int rank) {
+        if (file < 0 || file > 7) {
+            return ' ';
+        }
+        String[] ranks = placement.split("/");
+        if (ranks.length != 8) {
+            return ' ';
+        }
+        int column = 0;
+        for (char c : ranks[8 - rank].toCharArray()) {
+            if (Character.isDigit(c)) {
+                column += c - '0';
+            } else if (column++ == file) {
+                return c;
+            }
+            if (column > file) {
+                break;
+            }
+        }
+        return ' ';
+    }
+
+    // Formato de cada linha: profundidade, jogada e FEN normalizada, separados por tabulação
+    private void load() {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                fileLines++;
+                String[] parts = line.split("\t");
+                if (parts.length != 3) {
+                    continue; // linha incompleta, por exemplo de uma gravação interrompida
+                }
+                try {
+                    int depth = Integer.parseInt(parts[0]);
+                    // normalizada de novo: arquivos antigos guardavam a casa de en passant de todo avanço duplo
+                    String key = normalize(parts[2]);
+                    Entry old = entries.get(key);
+                    if (old == null || old.depth < depth) {
+                        entries.put(key, new Entry(parts[1], depth));
+                    }
+                } catch (NumberFormatException e) {
+                    // linha corrompida: ignora
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read best-move cache " + file, e);
+        }
+    }
+
+    private void append(String key, int depth, String move) {
+        try {
+            if (writer == null) {
+                writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            writer.write(depth + "\t" + move + "\t" + key);
+            writer.newLine();
+            writer.flush();
+            if (++fileLines > 2 * capacity) {
+                compact();
+            }
+        } catch (IOException e) {
+            System.err.println("Could not write best-move cache " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reescreve o arquivo só com as entradas da LRU e fecha o arquivo; o cache continua
+     * funcionando, e a próxima resposta guardada reabre o arquivo.
+     */
+    @Override
+    public synchronized void close() {
+        if (file == null) {
+            return;
+        }
+        try {
+            compact();
+            writer.close();
+        } catch (IOException e) {
+            System.err.println("Could not write best-move cache " + file + ": " + e.getMessage());
+        } finally {
+            writer = null;
+        }
+    }
+
+    // Grava em um arquivo temporário e troca de uma vez, então uma queda no meio deixa o arquivo antigo inteiro.
+    // As entradas vão da menos para a mais usada, a mesma ordem que o load() recria na LRU.
+    private void compact() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                out.write(entry.getValue().depth + "\t" + entry.getValue().move + "\t" + entry.getKey());
+                out.newLine();
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        fileLines = entries.size();
+        writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+    }
+}
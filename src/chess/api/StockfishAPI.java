@@ -8,66 +8,173 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 public class StockfishAPI {
 
     private static final String API_V2_URL = "https://stockfish.online/api/s/v2.php";
+    private static final Duration DEFAULT_DEADLINE = Duration.ofSeconds(30);
+
+    // Um único cliente para todas as consultas: as conexões ficam abertas e são reaproveitadas
+    private static final HttpClient CLIENT = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(15))
+            .build();
+
+    private static final StockfishAPI DEFAULT = new StockfishAPI(API_V2_URL, DEFAULT_DEADLINE);
+
+    private final String url;
+    private final Duration deadline;
+    private final ConcurrentHashMap<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Cria um cliente para outro endereço compatível com a API v2 (ex: um servidor local de testes).
+     * @param url O endereço da API, que recebe os parâmetros "fen" e "depth".
+     * @param deadline O tempo máximo de cada consulta sem prazo próprio, da conexão até a resposta completa.
+     */
+    public StockfishAPI(String url, Duration deadline) {
+        this.url = url;
+        this.deadline = deadline;
+    }
 
     /**
      * Consulta a API v2 do Stockfish para obter a melhor jogada para uma dada posição FEN.
+     * Bloqueia a thread atual até a resposta; prefira {@link #getBestMoveAsync(String, int)}.
      * @param fen A string FEN da posição atual do tabuleiro.
      * @param depth A profundidade de cálculo (nível de dificuldade).
-     * @return A melhor jogada no formato de notação de coordenadas longas (ex: "e2e4").
+     * @return A melhor jogada no formato de notação de coordenadas longas (ex: "e2e4"), ou null em caso de erro.
      */
     public static String getBestMove(String fen, int depth) {
-        
         try {
-            String encodedFen = URLEncoder.encode(fen, StandardCharsets.UTF_8);
-            String requestUri = API_V2_URL + "?fen=" + encodedFen + "&depth=" + depth;
-
-            HttpClient client = HttpClient.newBuilder()
-                    .connectTimeout(Duration.ofSeconds(15))
-                    .build();
-            
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(requestUri))
-                    .build();
-
-            System.out.println("Sending request (v2, GET method) to API: " + requestUri);
-
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-            
-            return parseBestMove(response.body());
-
-        } catch (IOException | InterruptedException e) {
-            System.out.println("Error communicating with Stockfish API: " + e.getMessage());
-            e.printStackTrace();
+            return getBestMoveAsync(fen, depth).join();
+        } catch (CompletionException e) {
+            System.out.println("Error communicating with Stockfish API: " + e.getCause());
             return null;
         }
     }
 
     /**
-     * Parser de JSON extrai corretamente a jogada de uma resposta complexa.
+     * Igual a {@link #getBestMove(String, int)}, sem bloquear: a jogada chega pelo CompletableFuture.
+     */
+    public static CompletableFuture<String> getBestMoveAsync(String fen, int depth) {
+        return DEFAULT.bestMove(fen, depth);
+    }
+
+    /**
+     * Igual a {@link #getBestMoveAsync(String, int)}, com um prazo só para esta consulta.
+     * @param timeout O tempo máximo da consulta, da conexão até a resposta completa.
+     */
+    public static CompletableFuture<String> getBestMoveAsync(String fen, int depth, Duration timeout) {
+        return DEFAULT.bestMove(fen, depth, timeout);
+    }
+
+    /**
+     * Igual a {@link #bestMove(String, int, Duration)}, com o prazo informado ao criar o cliente.
+     */
+    public CompletableFuture<String> bestMove(String fen, int depth) {
+        return bestMove(fen, depth, deadline);
+    }
+
+    /**
+     * Consulta a API sem bloquear. Consultas iguais (mesma FEN e profundidade) feitas enquanto uma
+     * delas ainda está em andamento são atendidas pela mesma requisição; cada uma ainda respeita o
+     * próprio prazo, e nenhuma espera além do prazo da requisição que a atende.
+     * @param timeout O tempo máximo desta consulta, da conexão até a resposta completa.
+     * @return Um CompletableFuture com a jogada (ou null se a resposta não trouxer uma), que falha
+     * com {@link java.util.concurrent.TimeoutException} se o prazo passar.
+     */
+    public CompletableFuture<String> bestMove(String fen, int depth, Duration timeout) {
+        String key = fen.trim() + " " + depth;
+        CompletableFuture<String> request = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(key, request);
+        if (existing != null) {
+            return existing.copy().orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        HttpRequest httpRequest = HttpRequest.newBuilder()
+                .uri(URI.create(url + "?fen=" + URLEncoder.encode(fen.trim(), StandardCharsets.UTF_8) + "&depth=" + depth))
+                .timeout(timeout)
+                .GET()
+                .build();
+
+        CLIENT.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofString())
+                .thenApply(StockfishAPI::handleResponse)
+                .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((move, error) -> {
+                    inFlight.remove(key, request);
+                    if (error != null) {
+                        request.completeExceptionally(error instanceof CompletionException ? error.getCause() : error);
+                    } else {
+                        request.complete(move);
+                    }
+                });
+        return request.copy();
+    }
+
+    private static String handleResponse(HttpResponse<String> response) {
+        if (response.statusCode() != 200) {
+            throw new CompletionException(new IOException("Stockfish API returned HTTP " + response.statusCode()));
+        }
+        return parseBestMove(response.body());
+    }
+
+    /**
+     * Extrai a jogada do campo "bestmove" da resposta, sem depender da ordem ou do espaçamento dos campos.
      * Exemplo de resposta: {"success":true,"bestmove":"bestmove e7e6 ponder b2b3"}
      * @param jsonResponse A string de resposta da API.
-     * @return A jogada extraída (ex: "e7e6").
+     * @return A jogada extraída (ex: "e7e6" ou "e7e8q"), ou null se não houver uma jogada válida.
      */
-    private static String parseBestMove(String jsonResponse) {
-        System.out.println("Response from API: " + jsonResponse);
-        if (jsonResponse != null && jsonResponse.contains("\"bestmove\":\"")) {
-            // Separa a string a partir de "bestmove":"
-            String[] parts = jsonResponse.split("\"bestmove\":\"");
-            if (parts.length > 1) {
-                // Pega a segunda parte: "bestmove e7e6 ponder b2b3",...}"
-                String moveData = parts[1];
-                // Separa as palavras por espaço
-                String[] moveParts = moveData.split(" ");
-                // A jogada real é a segunda palavra (índice 1)
-                if (moveParts.length > 1 && moveParts[1].length() == 4) {
-                    return moveParts[1]; // Retorna "e7e6"
-                }
+    static String parseBestMove(String jsonResponse) {
+        String value = stringField(jsonResponse, "bestmove");
+        if (value == null) {
+            return null;
+        }
+        // O valor repete a saída UCI: "bestmove <jogada> [ponder <jogada>]"
+        int start = value.startsWith("bestmove") ? "bestmove".length() : 0;
+        while (start < value.length() && value.charAt(start) == ' ') {
+            start++;
+        }
+        int end = start;
+        while (end < value.length() && value.charAt(end) != ' ') {
+            end++;
+        }
+        String move = value.substring(start, end);
+        return isUciMove(move) ? move : null;
+    }
+
+    /**
+     * @return O valor do campo de texto informado de um objeto JSON simples, ou null se ele não existir.
+     */
+    private static String stringField(String json, String name) {
+        if (json == null) {
+            return null;
+        }
+        int index = json.indexOf("\"" + name + "\"");
+        if (index < 0) {
+            return null;
+        }
+        index += name.length() + 2;
+        while (index < json.length() && (json.charAt(index) == ' ' || json.charAt(index) == ':')) {
+            index++;
+        }
+        if (index >= json.length() || json.charAt(index) != '"') {
+            return null;
+        }
+        int end = json.indexOf('"', index + 1);
+        return end < 0 ? null : json.substring(index + 1, end);
+    }
+
+    private static boolean isUciMove(String move) {
+        if (move.length() != 4 && move.length() != 5) {
+            return false;
+        }
+        for (int i = 0; i < 4; i += 2) {
+            if (move.charAt(i) < 'a' || move.charAt(i) > 'h' || move.charAt(i + 1) < '1' || move.charAt(i + 1) > '8') {
+                return false;
             }
         }
-        return null;
+        return move.length() == 4 || "nbrq".indexOf(move.charAt(4)) >= 0;
     }
-}
\ No newline at end of file
+}
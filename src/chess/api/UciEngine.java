@@ -0,0 +1,159 @@
+package chess.api;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Um processo de motor UCI local (ex: o executável do Stockfish), iniciado uma única vez e mantido
+ * aberto: cada consulta envia apenas "position fen" e "go depth" pela entrada padrão do processo.
+ * Uma instância atende uma consulta por vez; para várias threads, use {@link UciEnginePool}.
+ * Cada resposta esperada do motor tem um prazo: um motor travado é encerrado quando o prazo vence,
+ * e a consulta falha com IOException em vez de prender quem chamou para sempre.
+ */
+public class UciEngine implements AutoCloseable {
+
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
+
+    // uma única thread para todos os motores: só encerra processos cujo prazo venceu
+    private static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "uci-engine-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Process process;
+    private final BufferedReader reader;
+    private final BufferedWriter writer;
+    private final Duration timeout;
+    private volatile boolean timedOut;
+
+    /**
+     * Igual a {@link #UciEngine(Duration, String...)} com o prazo {@link #DEFAULT_TIMEOUT}.
+     */
+    public UciEngine(String... command) throws IOException {
+        this(DEFAULT_TIMEOUT, command);
+    }
+
+    /**
+     * Inicia o processo e faz o aperto de mão do protocolo ("uci"/"uciok" e "isready"/"readyok").
+     * @param timeout Prazo para cada resposta do motor (o aperto de mão, cada "bestmove", cada "readyok").
+     * @param command O executável do motor e seus argumentos (ex: "/usr/bin/stockfish").
+     */
+    public UciEngine(Duration timeout, String... command) throws IOException {
+        this.timeout = timeout;
+        process = new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        writer = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+        try {
+            send("uci");
+            waitFor("uciok");
+            send("isready");
+            waitFor("readyok");
+        } catch (IOException e) {
+            process.destroyForcibly();
+            throw e;
+        }
+    }
+
+    /**
+     * Consulta o motor para obter a melhor jogada para uma dada posição FEN.
+     * @param fen A string FEN da posição atual do tabuleiro.
+     * @param depth A profundidade de cálculo.
+     * @return A melhor jogada no formato de notação de coordenadas longas (ex: "e2e4", "e7e8q"),
+     * ou null se a posição não tiver jogadas.
+     * @throws IOException Se o processo do motor terminar, parar de responder ao protocolo ou não responder no prazo.
+     */
+    public synchronized String getBestMove(String fen, int depth) throws IOException {
+        send("position fen " + fen);
+        send("go depth " + depth);
+        String line = waitFor("bestmove");
+        String[] parts = line.trim().split("\\s+");
+        if (parts.length < 2 || parts[1].equals("(none)") || parts[1].equals("0000")) {
+            return null;
+        }
+        return parts[1];
+    }
+
+    /**
+     * Avisa o motor de que a próxima posição é de outra partida, para ele descartar o que guardou da anterior.
+     */
+    public synchronized void newGame() throws IOException {
+        send("ucinewgame");
+        send("isready");
+        waitFor("readyok");
+    }
+
+    public boolean isAlive() {
+        return process.isAlive();
+    }
+
+    /**
+     * Encerra o processo. Não espera a consulta em andamento: é justamente o fim do processo que
+     * libera uma thread presa lendo a saída de um motor travado, e essa consulta falha com IOException.
+     */
+    @Override
+    public void close() {
+        process.descendants().forEach(ProcessHandle::destroy);
+        process.destroy();
+        try {
+            if (!process.waitFor(1, TimeUnit.SECONDS)) {
+                destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // os descendentes também: um motor iniciado por um script deixaria o pipe aberto e a leitura presa
+    private void destroyForcibly() {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
+
+    private void send(String command) throws IOException {
+        writer.write(command);
+        writer.newLine();
+        writer.flush();
+    }
+
+    /**
+     * Lê a saída do motor até a linha que começa com o prefixo informado, ignorando as demais (ex: "info ...").
+     */
+    private String waitFor(String prefix) throws IOException {
+        // a leitura do pipe não tem prazo próprio: vencido o prazo, o processo é encerrado e a leitura termina
+        ScheduledFuture<?> deadline = WATCHDOG.schedule(() -> {
+            timedOut = true;
+            destroyForcibly();
+        }, timeout.toNanos(), TimeUnit.NANOSECONDS);
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(prefix)) {
+                    return line;
+                }
+            }
+        } catch (IOException e) {
+            if (!timedOut) {
+                throw e;
+            }
+        } finally {
+            deadline.cancel(false);
+        }
+        if (timedOut) {
+            throw new IOException("UCI engine did not answer \"" + prefix + "\" within " + timeout.toMillis() + " ms");
+        }
+        throw new IOException("UCI engine closed its output while waiting for \"" + prefix + "\"");
+    }
+}
@@ -0,0 +1,113 @@
+package chess.api;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Conjunto limitado de processos {@link UciEngine} para chamadas concorrentes.
+ * Os processos são iniciados sob demanda, até o limite, e reaproveitados entre as consultas;
+ * quem chama quando todos estão ocupados espera um ficar livre.
+ * Um processo que falhar é descartado e substituído na próxima consulta.
+ */
+public class UciEnginePool implements AutoCloseable {
+
+    private final String[] command;
+    private final Duration timeout;
+    private final Semaphore permits;
+    private final ConcurrentLinkedQueue<UciEngine> idle = new ConcurrentLinkedQueue<>();
+    private final List<UciEngine> engines = new ArrayList<>();
+    private volatile boolean closed;
+
+    /**
+     * @param size A quantidade máxima de processos do motor abertos ao mesmo tempo.
+     * @param command O executável do motor e seus argumentos.
+     */
+    public UciEnginePool(int size, String... command) {
+        this(size, UciEngine.DEFAULT_TIMEOUT, command);
+    }
+
+    /**
+     * @param size A quantidade máxima de processos do motor abertos ao mesmo tempo.
+     * @param timeout Prazo de cada resposta dos motores (veja {@link UciEngine#UciEngine(Duration, String...)}).
+     * @param command O executável do motor e seus argumentos.
+     */
+    public UciEnginePool(int size, Duration timeout, String... command) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1: " + size);
+        }
+        this.command = command.clone();
+        this.timeout = timeout;
+        this.permits = new Semaphore(size, true);
+    }
+
+    /**
+     * Consulta um dos motores do conjunto para obter a melhor jogada para uma dada posição FEN.
+     * @param fen A string FEN da posição atual do tabuleiro.
+     * @param depth A profundidade de cálculo.
+     * @return A melhor jogada no formato de notação de coordenadas longas (ex: "e2e4"), ou null se a posição não tiver jogadas.
+     * @throws IOException Se o motor não puder ser iniciado ou falhar durante a consulta.
+     * @throws InterruptedException Se a thread for interrompida enquanto espera um motor livre.
+     */
+    public String getBestMove(String fen, int depth) throws IOException, InterruptedException {
+        permits.acquire();
+        try {
+            UciEngine engine = acquire();
+            boolean healthy = false;
+            try {
+                String bestMove = engine.getBestMove(fen, depth);
+                healthy = true;
+                return bestMove;
+            } finally {
+                // qualquer falha, não só de E/S, deixa o processo em estado desconhecido
+                if (healthy && !closed) {
+                    idle.add(engine);
+                } else {
+                    discard(engine);
+                }
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        synchronized (engines) {
+            for (UciEngine engine : engines) {
+                engine.close();
+            }
+            engines.clear();
+        }
+        idle.clear();
+    }
+
+    private UciEngine acquire() throws IOException {
+        if (closed) {
+            throw new IllegalStateException("UCI engine pool is closed");
+        }
+        UciEngine engine;
+        while ((engine = idle.poll()) != null) {
+            if (engine.isAlive()) {
+                return engine;
+            }
+            discard(engine);
+        }
+        engine = new UciEngine(timeout, command);
+        synchronized (engines) {
+            engines.add(engine);
+        }
+        return engine;
+    }
+
+    private void discard(UciEngine engine) {
+        engine.close();
+        synchronized (engines) {
+            engines.remove(engine);
+        }
+    }
+}
@@ -0,0 +1,394 @@
+package chess.engine;
+
+import java.util.Arrays;
+
+import chess.Attacks;
+import chess.Bitboard;
+import chess.ChessMatch;
+import chess.Move;
+import chess.MoveGenerator;
+
+/**
+ * Tabelas de finais com até três peças: os dois reis e mais uma dama, torre ou peão (com bispo ou
+ * cavalo sozinho não há mate, então é empate). Não são as tabelas Syzygy: são geradas em memória, por
+ * análise retrógrada, uma única vez (cerca de um segundo) em {@link #load()} ou na primeira consulta, e depois
+ * lidas sem trava por qualquer thread. Para cada posição guardam o resultado com jogo perfeito e a distância
+ * até o mate, em meias-jogadas.
+ * As posições são guardadas com o lado que tem a peça como "brancas"; a consulta espelha o tabuleiro quando preciso.
+ */
+public final class EndgameTablebase {
+
+	public static final int MAX_PIECES = 3;
+
+	public static final int WIN = 1;
+	public static final int DRAW = 0;
+	public static final int LOSS = -1;
+
+	/**
+	 * Retornado pelas consultas quando a posição não é coberta ou não é legal (ex: uma FEN com o lado
+	 * que não joga em xeque, ou um peão na primeira fileira).
+	 */
+	public static final int NOT_COVERED = Integer.MIN_VALUE;
+
+	private static final int SIZE = 2 * 64 * 64 * 64;
+
+	// codificação de cada posição: vitória em d meias-jogadas = d, derrota em d = -(d + 1), empate = 0
+	private static final byte ILLEGAL = Byte.MIN_VALUE;
+	private static final byte UNRESOLVED = Byte.MAX_VALUE;
+
+	// a JVM inicializa a classe uma só vez e publica as tabelas prontas para todas as threads:
+	// depois disso a leitura não passa por trava nenhuma
+	private static final class Tables {
+
+		private static final byte[][] BY_TYPE = new byte[6][];
+
+		static {
+			// a tabela do peão consulta as da dama e da torre nas promoções
+			BY_TYPE[Bitboard.QUEEN] = generate(Bitboard.QUEEN, BY_TYPE);
+			BY_TYPE[Bitboard.ROOK] = generate(Bitboard.ROOK, BY_TYPE);
+			BY_TYPE[Bitboard.PAWN] = generate(Bitboard.PAWN, BY_TYPE);
+		}
+
+		private static void load() {
+		}
+	}
+
+	private EndgameTablebase() {
+	}
+
+	/**
+	 * Gera as tabelas, se ainda não foram geradas. Deve ser chamado antes da busca (ex: ao criar o motor),
+	 * para que a geração não aconteça no meio dela; chamadas seguintes não fazem nada.
+	 */
+	public static void load() {
+		Tables.load();
+	}
+
+	/**
+	 * @return true se a posição tem no máximo {@link #MAX_PIECES} peças, um rei de cada cor e nenhum direito de roque.
+	 * Uma posição coberta ainda pode ser ilegal; nesse caso as consultas retornam {@link #NOT_COVERED}.
+	 */
+	public static boolean covers(Bitboard position) {
+		return Long.bitCount(position.occupied()) <= MAX_PIECES && position.getCastlingRights() == 0
+				&& Long.bitCount(position.pieces(Bitboard.WHITE, Bitboard.KING)) == 1
+				&& Long.bitCount(position.pieces(Bitboard.BLACK, Bitboard.KING)) == 1;
+	}
+
+	/**
+	 * @return {@link #WIN}, {@link #DRAW} ou {@link #LOSS}, do ponto de vista do lado a jogar, ou {@link #NOT_COVERED}.
+	 */
+	public static int probeWdl(Bitboard position) {
+		int value = probe(position);
+		if (value == ILLEGAL) {
+			return NOT_COVERED;
+		}
+		return value == 0 ? DRAW : value > 0 ? WIN : LOSS;
+	}
+
+	/**
+	 * @return Quantas meias-jogadas faltam para o mate com jogo perfeito dos dois lados, 0 se for empate,
+	 * ou {@link #NOT_COVERED}.
+	 */
+	public static int probeDistance(Bitboard position) {
+		int value = probe(position);
+		if (value == ILLEGAL) {
+			return NOT_COVERED;
+		}
+		return value >= 0 ? value : -value - 1;
+	}
+
+	/**
+	 * Empate por material insuficiente: nenhum dos lados consegue dar mate (rei contra rei,
+	 * rei e bispo ou cavalo contra rei, ou reis e bispos todos em casas da mesma cor).
+	 */
+	public static boolean isInsufficientMaterial(Bitboard position) {
+		long pawnsRooksQueens = 0L;
+		for (int color = Bitboard.WHITE; color <= Bitboard.BLACK; color++) {
+			pawnsRooksQueens |= position.pieces(color, Bitboard.PAWN) | position.pieces(color, Bitboard.ROOK) | position.pieces(color, Bitboard.QUEEN);
+		}
+		if (pawnsRooksQueens != 0L) {
+			return false;
+		}
+		long knights = position.pieces(Bitboard.WHITE, Bitboard.KNIGHT) | position.pieces(Bitboard.BLACK, Bitboard.KNIGHT);
+		long bishops = position.pieces(Bitboard.WHITE, Bitboard.BISHOP) | position.pieces(Bitboard.BLACK, Bitboard.BISHOP);
+		int minors = Long.bitCount(knights | bishops);
+		if (minors <= 1) {
+			return true;
+		}
+		long darkSquares = 0xAA55AA55AA55AA55L;
+		return knights == 0L && ((bishops & darkSquares) == 0L || (bishops & ~darkSquares) == 0L);
+	}
+
+	/**
+	 * Escolhe a jogada perfeita: a vitória mais rápida, senão um empate, senão a derrota mais demorada.
+	 * @return A jogada codificada por {@link Move}, ou {@link Move#NONE} se a posição não for coberta ou não tiver jogadas.
+	 */
+	public static int getBestMove(ChessMatch chessMatch) {
+		Bitboard position = chessMatch.getBitboard();
+		if (probe(position) == ILLEGAL) {
+			return Move.NONE;
+		}
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		int count = MoveGenerator.generateLegalMoves(position, position.getSideToMove(), moves);
+		int bestMove = Move.NONE;
+		int bestScore = Integer.MIN_VALUE;
+		for (int i = 0; i < count; i++) {
+			chessMatch.makeMove(moves[i]);
+			int value = probe(position);
+			chessMatch.undoMove();
+			if (value == ILLEGAL) {
+				continue;
+			}
+			// o valor é do ponto de vista do adversário, que joga depois
+			int score = value == 0 ? 0 : value < 0 ? 1000 + value : -1000 + value;
+			if (score > bestScore) {
+				bestScore = score;
+				bestMove = moves[i];
+			}
+		}
+		return bestMove;
+	}
+
+	/**
+	 * Igual a {@link #getBestMove(ChessMatch)}, com o mesmo contrato dos motores: "FEN → melhor jogada".
+	 * @return A jogada em notação de coordenadas longas, ou null se a posição não for coberta ou não tiver jogadas.
+	 */
+	public static String getBestMove(String fen) {
+		int move = getBestMove(new ChessMatch(fen));
+		return move == Move.NONE ? null : Move.toUci(move);
+	}
+
+	/**
+	 * @return O valor codificado da posição, do ponto de vista do lado a jogar, ou {@link #ILLEGAL}
+	 * se a posição não for coberta ou não for legal.
+	 */
+	private static int probe(Bitboard position) {
+		if (!covers(position)) {
+			return ILLEGAL;
+		}
+		long others = position.occupied() & ~position.pieces(Bitboard.WHITE, Bitboard.KING) & ~position.pieces(Bitboard.BLACK, Bitboard.KING);
+		if (others == 0L) {
+			return 0;
+		}
+		int square = Long.numberOfTrailingZeros(others);
+		int piece = position.pieceAt(square);
+		int type = Bitboard.typeOf(piece);
+		if (type == Bitboard.KNIGHT || type == Bitboard.BISHOP) {
+			return 0;
+		}
+		int wk = position.kingSquare(Bitboard.WHITE);
+		int bk = position.kingSquare(Bitboard.BLACK);
+		int stm = position.getSideToMove();
+		// a tabela guarda o lado com a peça como brancas: com a peça preta, o tabuleiro é espelhado
+		if (Bitboard.colorOf(piece) == Bitboard.BLACK) {
+			int mirroredWk = bk ^ 56;
+			bk = wk ^ 56;
+			wk = mirroredWk;
+			square ^= 56;
+			stm ^= 1;
+		}
+		return Tables.BY_TYPE[type][index(stm, wk, bk, square)];
+	}
+
+	private static int index(int stm, int wk, int bk, int piece) {
+		return (((stm << 6 | wk) << 6) | bk) << 6 | piece;
+	}
+
+	/**
+	 * Análise retrógrada do final rei e peça (brancas) contra rei (pretas): as brancas só podem vencer
+	 * ou empatar e as pretas só podem perder ou empatar. Partindo dos mates, as posições são resolvidas
+	 * em ordem crescente de distância: uma posição das brancas vence se alguma jogada leva a uma derrota
+	 * das pretas; uma posição das pretas perde quando todas as suas jogadas levam a vitórias das brancas.
+	 * O que sobra sem resolver é empate.
+	 */
+	private static byte[] generate(int type, byte[][] tables) {
+		byte[] value = new byte[SIZE];
+		byte[] degree = new byte[SIZE];
+		boolean[] done = new boolean[SIZE];
+		Buckets buckets = new Buckets();
+		Arrays.fill(value, UNRESOLVED);
+
+		for (int index = 0; index < SIZE; index++) {
+			int stm = index >>> 18;
+			int wk = (index >>> 12) & 63;
+			int bk = (index >>> 6) & 63;
+			int p = index & 63;
+			if (!isValid(type, stm, wk, bk, p)) {
+				value[index] = ILLEGAL;
+			}
+		}
+
+		for (int index = 0; index < SIZE; index++) {
+			if (value[index] == ILLEGAL) {
+				continue;
+			}
+			int wk = (index >>> 12) & 63;
+			int bk = (index >>> 6) & 63;
+			int p = index & 63;
+			long occupied = (1L << wk) | (1L << bk) | (1L << p);
+			if (index >>> 18 == Bitboard.BLACK) {
+				long attacked = Attacks.kingAttacks(wk) | pieceAttacks(type, p, occupied & ~(1L << bk));
+				long targets = Attacks.kingAttacks(bk) & ~attacked;
+				if ((targets & (1L << p)) != 0L) {
+					value[index] = 0; // o rei preto captura a peça: rei contra rei
+				}
+				else if (targets == 0L) {
+					value[index] = (attacked & (1L << bk)) != 0L ? (byte)-1 : 0; // mate ou afogamento
+					if (value[index] != 0) {
+						buckets.add(0, index);
+					}
+				}
+				else {
+					degree[index] = (byte)Long.bitCount(targets);
+				}
+			}
+			else if (type == Bitboard.PAWN && p >= 48 && (occupied & (1L << (p + 8))) == 0L) {
+				// #specialmove promotion: a dama ou a torre continuam em outra tabela, com as pretas a jogar
+				int best = Integer.MAX_VALUE;
+				for (int promotion : new int[] { Bitboard.QUEEN, Bitboard.ROOK }) {
+					int child = tables[promotion][index(Bitboard.BLACK, wk, bk, p + 8)];
+					if (child < 0 && child != ILLEGAL) {
+						best = Math.min(best, -child);
+					}
+				}
+				if (best != Integer.MAX_VALUE) {
+					buckets.add(best, index);
+				}
+			}
+		}
+
+		for (int distance = 0; distance < buckets.size(); distance++) {
+			for (int i = 0; i < buckets.count(distance); i++) {
+				int index = buckets.get(distance, i);
+				if (done[index]) {
+					continue;
+				}
+				done[index] = true;
+				int stm = index >>> 18;
+				int wk = (index >>> 12) & 63;
+				int bk = (index >>> 6) & 63;
+				int p = index & 63;
+				long occupied = (1L << wk) | (1L << bk) | (1L << p);
+				if (stm == Bitboard.WHITE) {
+					if (value[index] == UNRESOLVED) {
+						value[index] = (byte)distance;
+					}
+					// as pretas acabaram de jogar: cada origem possível do rei preto perde uma saída
+					long origins = Attacks.kingAttacks(bk) & ~occupied;
+					while (origins != 0L) {
+						int origin = Long.numberOfTrailingZeros(origins);
+						origins &= origins - 1;
+						int previous = index(Bitboard.BLACK, wk, origin, p);
+						if (value[previous] == UNRESOLVED && --degree[previous] == 0) {
+							value[previous] = (byte)-(distance + 2);
+							buckets.add(distance + 1, previous);
+						}
+					}
+				}
+				else {
+					// as brancas acabaram de jogar: qualquer origem que leve até aqui vence
+					long kingOrigins = Attacks.kingAttacks(wk) & ~occupied;
+					while (kingOrigins != 0L) {
+						int origin = Long.numberOfTrailingZeros(kingOrigins);
+						kingOrigins &= kingOrigins - 1;
+						resolveWin(value, buckets, index(Bitboard.WHITE, origin, bk, p), distance + 1);
+					}
+					long pieceOrigins = pieceOrigins(type, p, occupied);
+					while (pieceOrigins != 0L) {
+						int origin = Long.numberOfTrailingZeros(pieceOrigins);
+						pieceOrigins &= pieceOrigins - 1;
+						resolveWin(value, buckets, index(Bitboard.WHITE, wk, bk, origin), distance + 1);
+					}
+				}
+			}
+		}
+
+		for (int index = 0; index < SIZE; index++) {
+			if (value[index] == UNRESOLVED) {
+				value[index] = 0;
+			}
+		}
+		return value;
+	}
+
+	private static void resolveWin(byte[] value, Buckets buckets, int index, int distance) {
+		if (value[index] == UNRESOLVED) {
+			value[index] = (byte)distance;
+			buckets.add(distance, index);
+		}
+	}
+
+	private static boolean isValid(int type, int stm, int wk, int bk, int p) {
+		if (wk == bk || wk == p || bk == p || (Attacks.kingAttacks(wk) & (1L << bk)) != 0L) {
+			return false;
+		}
+		if (type == Bitboard.PAWN && (p < 8 || p >= 56)) {
+			return false;
+		}
+		long occupied = (1L << wk) | (1L << bk) | (1L << p);
+		// com as brancas a jogar, o rei preto não pode estar em xeque
+		return stm == Bitboard.BLACK || (pieceAttacks(type, p, occupied) & (1L << bk)) == 0L;
+	}
+
+	private static long pieceAttacks(int type, int square, long occupied) {
+		switch (type) {
+			case Bitboard.QUEEN: return Attacks.queenAttacks(square, occupied);
+			case Bitboard.ROOK: return Attacks.rookAttacks(square, occupied);
+			default: return Attacks.pawnAttacks(Bitboard.WHITE, square);
+		}
+	}
+
+	/**
+	 * Casas de onde a peça branca pode ter vindo até "square" sem capturar nada.
+	 */
+	private static long pieceOrigins(int type, int square, long occupied) {
+		if (type != Bitboard.PAWN) {
+			return pieceAttacks(type, square, occupied) & ~occupied;
+		}
+		long origins = 0L;
+		if (square >= 16 && (occupied & (1L << (square - 8))) == 0L) {
+			origins |= 1L << (square - 8);
+			if ((square >>> 3) == 3 && (occupied & (1L << (square - 16))) == 0L) {
+				origins |= 1L << (square - 16);
+			}
+		}
+		return origins;
+	}
+
+	/**
+	 * Filas de posições por distância, processadas em ordem crescente pela análise retrógrada.
+	 */
+	private static final class Buckets {
+		private int[][] items = new int[16][];
+		private int[] counts = new int[16];
+		private int size;
+
+		void add(int distance, int index) {
+			if (distance >= items.length) {
+				items = Arrays.copyOf(items, Math.max(items.length * 2, distance + 1));
+				counts = Arrays.copyOf(counts, items.length);
+			}
+			if (items[distance] == null) {
+				items[distance] = new int[1024];
+			}
+			else if (counts[distance] == items[distance].length) {
+				items[distance] = Arrays.copyOf(items[distance], counts[distance] * 2);
+			}
+			items[distance][counts[distance]++] = index;
+			size = Math.max(size, distance + 1);
+		}
+
+		int size() {
+			return size;
+		}
+
+		int count(int distance) {
+			return counts[distance];
+		}
+
+		int get(int distance, int i) {
+			return items[distance][i];
+		}
+	}
+
+}
@@ -0,0 +1,131 @@
+package chess.engine;
+
+import chess.Bitboard;
+
+/**
+ * Avaliação estática da posição em centipeões, do ponto de vista do lado a jogar:
+ * material mais tabelas de casas por peça (a do rei muda quando o material diminui).
+ */
+public final class Evaluation {
+
+	public static final int[] PIECE_VALUES = { 100, 320, 330, 500, 900, 0 };
+
+	private static final int ENDGAME_MATERIAL = 1300;
+
+	// tabelas do ponto de vista das brancas, começando em a8
+	private static final int[] PAWN_TABLE = {
+		 0,  0,  0,  0,  0,  0,  0,  0,
+		50, 50, 50, 50, 50, 50, 50, 50,
+		10, 10, 20, 30, 30, 20, 10, 10,
+		 5,  5, 10, 25, 25, 10,  5,  5,
+		 0,  0,  0, 20, 20,  0,  0,  0,
+		 5, -5,-10,  0,  0,-10, -5,  5,
+		 5, 10, 10,-20,-20, 10, 10,  5,
+		 0,  0,  0,  0,  0,  0,  0,  0
+	};
+
+	private static final int[] KNIGHT_TABLE = {
+		-50,-40,-30,-30,-30,-30,-40,-50,
+		-40,-20,  0,  0,  0,  0,-20,-40,
+		-30,  0, 10, 15, 15, 10,  0,-30,
+		-30,  5, 15, 20, 20, 15,  5,-30,
+		-30,  0, 15, 20, 20, 15,  0,-30,
+		-30,  5, 10, 15, 15, 10,  5,-30,
+		-40,-20,  0,  5,  5,  0,-20,-40,
+		-50,-40,-30,-30,-30,-30,-40,-50
+	};
+
+	private static final int[] BISHOP_TABLE = {
+		-20,-10,-10,-10,-10,-10,-10,-20,
+		-10,  0,  0,  0,  0,  0,  0,-10,
+		-10,  0,  5, 10, 10,  5,  0,-10,
+		-10,  5,  5, 10, 10,  5,  5,-10,
+		-10,  0, 10, 10, 10, 10,  0,-10,
+		-10, 10, 10, 10, 10, 10, 10,-10,
+		-10,  5,  0,  0,  0,  0,  5,-10,
+		-20,-10,-10,-10,-10,-10,-10,-20
+	};
+
+	private static final int[] ROOK_TABLE = {
+		 0,  0,  0,  0,  0,  0,  0,  0,
+		 5, 10, 10, 10, 10, 10, 10,  5,
+		-5,  0,  0,  0,  0,  0,  0, -5,
+		-5,  0,  0,  0,  0,  0,  0, -5,
+		-5,  0,  0,  0,  0,  0,  0, -5,
+		-5,  0,  0,  0,  0,  0,  0, -5,
+		-5,  0,  0,  0,  0,  0,  0, -5,
+		 0,  0,  0,  5,  5,  0,  0,  0
+	};
+
+	private static final int[] QUEEN_TABLE = {
+		-20,-10,-10, -5, -5,-10,-10,-20,
+		-10,  0,  0,  0,  0,  0,  0,-10,
+		-10,  0,  5,  5,  5,  5,  0,-10,
+		 -5,  0,  5,  5,  5,  5,  0, -5,
+		  0,  0,  5,  5,  5,  5,  0, -5,
+		-10,  5,  5,  5,  5,  5,  0,-10,
+		-10,  0,  5,  0,  0,  0,  0,-10,
+		-20,-10,-10, -5, -5,-10,-10,-20
+	};
+
+	private static final int[] KING_MIDDLEGAME_TABLE = {
+		-30,-40,-40,-50,-50,-40,-40,-30,
+		-30,-40,-40,-50,-50,-40,-40,-30,
+		-30,-40,-40,-50,-50,-40,-40,-30,
+		-30,-40,-40,-50,-50,-40,-40,-30,
+		-20,-30,-30,-40,-40,-30,-30,-20,
+		-10,-20,-20,-20,-20,-20,-20,-10,
+		 20, 20,  0,  0,  0,  0, 20, 20,
+		 20, 30, 10,  0,  0, 10, 30, 20
+	};
+
+	private static final int[] KING_ENDGAME_TABLE = {
+		-50,-40,-30,-20,-20,-30,-40,-50,
+		-30,-20,-10,  0,  0,-10,-20,-30,
+		-30,-10, 20, 30, 30, 20,-10,-30,
+		-30,-10, 30, 40, 40, 30,-10,-30,
+		-30,-10, 30, 40, 40, 30,-10,-30,
+		-30,-10, 20, 30, 30, 20,-10,-30,
+		-30,-30,  0,  0,  0,  0,-30,-30,
+		-50,-30,-30,-30,-30,-30,-30,-50
+	};
+
+	private static final int[][] TABLES = { PAWN_TABLE, KNIGHT_TABLE, BISHOP_TABLE, ROOK_TABLE, QUEEN_TABLE };
+
+	private Evaluation() {
+	}
+
+	public static int evaluate(Bitboard position) {
+		int[] nonPawnMaterial = new int[2];
+		int score = 0;
+		for (int color = Bitboard.WHITE; color <= Bitboard.BLACK; color++) {
+			int sign = color == Bitboard.WHITE ? 1 : -1;
+			int flip = color == Bitboard.WHITE ? 56 : 0;
+			for (int type = Bitboard.PAWN; type <= Bitboard.QUEEN; type++) {
+				long pieces = position.pieces(color, type);
+				while (pieces != 0L) {
+					int square = Long.numberOfTrailingZeros(pieces);
+					pieces &= pieces - 1;
+					score += sign * (PIECE_VALUES[type] + TABLES[type][square ^ flip]);
+					if (type != Bitboard.PAWN) {
+						nonPawnMaterial[color] += PIECE_VALUES[type];
+					}
+				}
+			}
+		}
+
+		boolean endgame = nonPawnMaterial[Bitboard.WHITE] <= ENDGAME_MATERIAL && nonPawnMaterial[Bitboard.BLACK] <= ENDGAME_MATERIAL;
+		int[] kingTable = endgame ? KING_ENDGAME_TABLE : KING_MIDDLEGAME_TABLE;
+		int whiteKing = position.kingSquare(Bitboard.WHITE);
+		int blackKing = position.kingSquare(Bitboard.BLACK);
+		if (whiteKing != Bitboard.NO_SQUARE) {
+			score += kingTable[whiteKing ^ 56];
+		}
+		if (blackKing != Bitboard.NO_SQUARE) {
+			score -= kingTable[blackKing];
+		}
+
+		return position.getSideToMove() == Bitboard.WHITE ? score : -score;
+	}
+
+}
@@ -0,0 +1,123 @@
+package chess.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import chess.ChessMatch;
+import chess.Move;
+
+/**
+ * Busca paralela no estilo Lazy SMP: todas as threads buscam a mesma posição, cada uma com a sua
+ * própria partida, e trocam resultados apenas pela tabela de transposição compartilhada (sem travas).
+ * A thread principal busca até a profundidade pedida; as auxiliares começam em profundidades
+ * alternadas, vão além dela e são interrompidas quando a principal termina.
+ */
+public class ParallelSearch implements AutoCloseable {
+
+	private final int threads;
+	private final TranspositionTable table;
+	private final AtomicBoolean stopped = new AtomicBoolean();
+	private final Search[] searches;
+	private final ExecutorService helpers;
+
+	/**
+	 * @param threads Quantidade de threads da busca, incluindo a que chama {@link #search(String, int)}.
+	 */
+	public ParallelSearch(int threads, TranspositionTable table) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("threads must be at least 1: " + threads);
+		}
+		this.threads = threads;
+		this.table = table;
+		searches = new Search[threads];
+		for (int i = 0; i < threads; i++) {
+			searches[i] = new Search(table, stopped);
+		}
+		helpers = threads > 1 ? Executors.newFixedThreadPool(threads - 1, r -> {
+			Thread thread = new Thread(r, "search-helper");
+			thread.setDaemon(true);
+			return thread;
+		}) : null;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	public TranspositionTable getTable() {
+		return table;
+	}
+
+	/**
+	 * Busca a melhor jogada da posição. Não deve ser chamado por duas threads ao mesmo tempo.
+	 * @return A melhor jogada codificada por {@link Move}, ou {@link Move#NONE} se não houver jogada legal.
+	 */
+	public int search(String fen, int depth) {
+		return search(new ChessMatch(fen), depth);
+	}
+
+	/**
+	 * Igual a {@link #search(String, int)}. A thread principal busca na própria partida, que é devolvida
+	 * no mesmo estado; cada auxiliar busca numa cópia ({@link ChessMatch#copy()}).
+	 */
+	public int search(ChessMatch chessMatch, int depth) {
+		stopped.set(false);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int i = 1; i < threads; i++) {
+			Search helper = searches[i];
+			int firstDepth = 1 + (i & 1);
+			ChessMatch copy = chessMatch.copy();
+			futures.add(helpers.submit(() -> helper.search(copy, firstDepth, Search.MAX_PLY - 1)));
+		}
+		int move;
+		try {
+			move = searches[0].search(chessMatch, depth);
+		}
+		finally {
+			stopped.set(true);
+			for (Future<?> future : futures) {
+				try {
+					future.get();
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				catch (ExecutionException e) {
+					// a jogada vem da thread principal; uma falha numa auxiliar só perde o trabalho dela
+				}
+			}
+		}
+		return move;
+	}
+
+	/**
+	 * @return A nota da última busca, do ponto de vista do lado a jogar.
+	 */
+	public int getScore() {
+		return searches[0].getScore();
+	}
+
+	/**
+	 * @return A soma dos nós visitados por todas as threads na última busca.
+	 */
+	public long getNodes() {
+		long nodes = 0;
+		for (Search search : searches) {
+			nodes += search.getNodes();
+		}
+		return nodes;
+	}
+
+	@Override
+	public void close() {
+		if (helpers != null) {
+			helpers.shutdownNow();
+		}
+	}
+
+}
@@ -0,0 +1,166 @@
+package chess.engine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import chess.Bitboard;
+import chess.ChessMatch;
+import chess.Move;
+import chess.MoveGenerator;
+
+/**
+ * Livro de aberturas no formato Polyglot (.bin), mapeado na memória com {@link FileChannel#map}:
+ * o arquivo não é copiado para o heap e o mesmo livro pode atender várias partidas ao mesmo tempo.
+ * Cada entrada tem 16 bytes (chave, jogada, peso e aprendizado, em big-endian) e as entradas
+ * estão ordenadas pela chave, então a consulta é uma busca binária.
+ */
+public class PolyglotBook {
+
+	private static final int ENTRY_SIZE = 16;
+
+	/**
+	 * Uma jogada do livro, em notação de coordenadas longas, com o peso dado pelo livro.
+	 */
+	public static final class BookMove {
+		private final String move;
+		private final int weight;
+
+		BookMove(String move, int weight) {
+			this.move = move;
+			this.weight = weight;
+		}
+
+		public String getMove() {
+			return move;
+		}
+
+		public int getWeight() {
+			return weight;
+		}
+
+		@Override
+		public String toString() {
+			return move + " (" + weight + ")";
+		}
+	}
+
+	private final ByteBuffer entries;
+	private final int count;
+
+	private PolyglotBook(ByteBuffer entries) {
+		this.entries = entries;
+		this.count = entries.capacity() / ENTRY_SIZE;
+	}
+
+	/**
+	 * Mapeia o arquivo do livro. O mapeamento continua válido depois que o canal é fechado.
+	 */
+	public static PolyglotBook open(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return new PolyglotBook(buffer);
+		}
+	}
+
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * @return As jogadas do livro para a posição que também são legais nela, na ordem do arquivo.
+	 */
+	public List<BookMove> getMoves(ChessMatch chessMatch) {
+		Bitboard position = chessMatch.getBitboard();
+		long key = PolyglotKey.compute(position);
+		List<BookMove> moves = new ArrayList<>();
+		int[] legalMoves = new int[MoveGenerator.MAX_MOVES];
+		int legalCount = MoveGenerator.generateLegalMoves(position, position.getSideToMove(), legalMoves);
+		for (int i = firstEntry(key); i < count && entries.getLong(i * ENTRY_SIZE) == key; i++) {
+			int data = entries.getShort(i * ENTRY_SIZE + 8) & 0xFFFF;
+			int weight = entries.getShort(i * ENTRY_SIZE + 10) & 0xFFFF;
+			int move = toMove(position, data, legalMoves, legalCount);
+			if (move != Move.NONE) {
+				moves.add(new BookMove(Move.toUci(move), weight));
+			}
+		}
+		return moves;
+	}
+
+	/**
+	 * Escolhe uma jogada do livro para a posição, sorteada com probabilidade proporcional ao peso.
+	 * @param fen A posição no formato FEN.
+	 * @return A jogada em notação de coordenadas longas (ex: "e2e4"), ou null se a posição não estiver no livro.
+	 */
+	public String getBookMove(String fen) {
+		List<BookMove> moves = getMoves(new ChessMatch(fen));
+		if (moves.isEmpty()) {
+			return null;
+		}
+		long total = 0;
+		for (BookMove move : moves) {
+			total += move.getWeight();
+		}
+		if (total == 0) {
+			return moves.get(0).getMove();
+		}
+		long pick = ThreadLocalRandom.current().nextLong(total);
+		for (BookMove move : moves) {
+			pick -= move.getWeight();
+			if (pick < 0) {
+				return move.getMove();
+			}
+		}
+		return moves.get(moves.size() - 1).getMove();
+	}
+
+	/**
+	 * Primeira entrada com chave maior ou igual à informada (as chaves são comparadas sem sinal).
+	 */
+	private int firstEntry(long key) {
+		int low = 0;
+		int high = count;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (Long.compareUnsigned(entries.getLong(middle * ENTRY_SIZE), key) < 0) {
+				low = middle + 1;
+			}
+			else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Converte a jogada do Polyglot (destino nos bits 0-5, origem nos bits 6-11, promoção nos bits 12-14,
+	 * com 1 a 4 para cavalo, bispo, torre e dama, a mesma numeração do {@link Bitboard}) na jogada legal
+	 * correspondente. O roque vem como "rei captura a própria torre" (e1h1) e vira e1g1.
+	 * @return A jogada, ou {@link Move#NONE} se ela não for legal na posição (colisão de chave ou livro corrompido).
+	 */
+	private static int toMove(Bitboard position, int data, int[] legalMoves, int legalCount) {
+		int to = data & 63;
+		int from = (data >>> 6) & 63;
+		int promotion = (data >>> 12) & 7;
+		if (position.pieceAt(from) == Bitboard.piece(position.getSideToMove(), Bitboard.KING)
+				&& Bitboard.typeOf(position.pieceAt(to)) == Bitboard.ROOK
+				&& Bitboard.colorOf(position.pieceAt(to)) == position.getSideToMove()) {
+			to = to > from ? from + 2 : from - 2;
+		}
+		for (int i = 0; i < legalCount; i++) {
+			int move = legalMoves[i];
+			if (Move.from(move) == from && Move.to(move) == to
+					&& (promotion == 0 ? !Move.isPromotion(move) : Move.isPromotion(move) && Move.promotion(move) == promotion)) {
+				return move;
+			}
+		}
+		return Move.NONE;
+	}
+
+}
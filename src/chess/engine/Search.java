@@ -0,0 +1,375 @@
+package chess.engine;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import chess.Bitboard;
+import chess.ChessMatch;
+import chess.Move;
+import chess.MoveGenerator;
+
+/**
+ * Busca alfa-beta (negamax com janela nula) com aprofundamento iterativo, tabela de transposição,
+ * ordenação de jogadas (jogada da tabela, MVV-LVA, killers e histórico) e busca de quiescência.
+ * As jogadas são aplicadas e desfeitas no próprio ChessMatch, então uma instância não é thread-safe;
+ * a busca paralela usa uma instância (e uma partida) por thread, todas com a mesma tabela.
+ */
+public class Search {
+
+	public static final int INFINITY = 32000;
+	public static final int MATE = 31000;
+	public static final int MAX_PLY = 64;
+
+	private static final int MATE_BOUND = MATE - MAX_PLY;
+
+	private static final int TABLE_MOVE_SCORE = 1_000_000;
+	private static final int CAPTURE_SCORE = 100_000;
+	private static final int PROMOTION_SCORE = 90_000;
+	private static final int FIRST_KILLER_SCORE = 80_000;
+	private static final int SECOND_KILLER_SCORE = 70_000;
+	private static final int MAX_HISTORY = 60_000;
+
+	private final TranspositionTable table;
+	private final AtomicBoolean stopped;
+
+	private final int[][] moves = new int[MAX_PLY + 1][MoveGenerator.MAX_MOVES];
+	private final int[][] moveScores = new int[MAX_PLY + 1][MoveGenerator.MAX_MOVES];
+	private final int[][] killers = new int[MAX_PLY + 1][2];
+	private final int[][] history = new int[12][64];
+	private final long[] keys = new long[MAX_PLY + 1];
+
+	private ChessMatch chessMatch;
+	private Bitboard position;
+	private long nodes;
+	private int rootMove;
+	private int bestMove;
+	private int bestScore;
+	private int completedDepth;
+
+	public Search(TranspositionTable table) {
+		this(table, new AtomicBoolean());
+	}
+
+	/**
+	 * @param stopped Indicador de parada, que pode ser compartilhado entre as buscas de várias threads.
+	 */
+	public Search(TranspositionTable table, AtomicBoolean stopped) {
+		this.table = table;
+		this.stopped = stopped;
+	}
+
+	/**
+	 * Busca a melhor jogada do lado a jogar, aprofundando de 1 até a profundidade informada.
+	 * A partida é devolvida no mesmo estado em que foi recebida.
+	 * @return A melhor jogada codificada por {@link Move}, ou {@link Move#NONE} se não houver jogada legal.
+	 */
+	public int search(ChessMatch chessMatch, int depth) {
+		return search(chessMatch, 1, depth);
+	}
+
+	/**
+	 * Igual a {@link #search(ChessMatch, int)}, começando na profundidade informada.
+	 * As threads auxiliares da busca paralela começam em profundidades diferentes para não repetir o mesmo trabalho.
+	 */
+	public int search(ChessMatch chessMatch, int firstDepth, int depth) {
+		this.chessMatch = chessMatch;
+		this.position = chessMatch.getBitboard();
+		nodes = 0;
+		bestMove = Move.NONE;
+		bestScore = 0;
+		completedDepth = 0;
+		for (int[] k : killers) {
+			k[0] = Move.NONE;
+			k[1] = Move.NONE;
+		}
+		for (int[] h : history) {
+			Arrays.fill(h, 0);
+		}
+
+		for (int d = Math.max(1, firstDepth); d <= Math.min(depth, MAX_PLY - 1); d++) {
+			rootMove = Move.NONE;
+			int score = negamax(d, 0, -INFINITY, INFINITY);
+			if (stopped.get() || rootMove == Move.NONE) {
+				break;
+			}
+			bestMove = rootMove;
+			bestScore = score;
+			completedDepth = d;
+			if (Math.abs(score) >= MATE_BOUND) {
+				break;
+			}
+		}
+		return bestMove;
+	}
+
+	/**
+	 * Interrompe a busca em andamento; o resultado fica sendo o da última iteração completa.
+	 * O indicador continua ligado até ser desligado por quem o criou.
+	 */
+	public void stop() {
+		stopped.set(true);
+	}
+
+	public long getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * @return A nota da última iteração completa, em centipeões, do ponto de vista do lado a jogar.
+	 */
+	public int getScore() {
+		return bestScore;
+	}
+
+	public int getCompletedDepth() {
+		return completedDepth;
+	}
+
+	private int negamax(int depth, int ply, int alpha, int beta) {
+		long key = position.getKey();
+		keys[ply] = key;
+		if (ply > 0 && isRepetition(ply)) {
+			return 0;
+		}
+		if (ply > 0 && EndgameTablebase.covers(position)) {
+			int wdl = EndgameTablebase.probeWdl(position);
+			if (wdl != EndgameTablebase.NOT_COVERED) {
+				nodes++;
+				return tablebaseScore(ply, wdl);
+			}
+		}
+		int side = position.getSideToMove();
+		boolean inCheck = position.isInCheck(side);
+		if (inCheck) {
+			depth++;
+		}
+		if (depth <= 0 || ply >= MAX_PLY) {
+			return quiescence(ply, alpha, beta);
+		}
+		nodes++;
+
+		int originalAlpha = alpha;
+		int tableMove = Move.NONE;
+		long entry = table.probe(key);
+		if (entry != 0L) {
+			tableMove = TranspositionTable.move(entry);
+			if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+				int score = fromTable(TranspositionTable.score(entry), ply);
+				int flag = TranspositionTable.flag(entry);
+				if (flag == TranspositionTable.EXACT
+						|| (flag == TranspositionTable.LOWER_BOUND && score >= beta)
+						|| (flag == TranspositionTable.UPPER_BOUND && score <= alpha)) {
+					return score;
+				}
+			}
+		}
+
+		int[] list = moves[ply];
+		int count = MoveGenerator.generateLegalMoves(position, side, list);
+		if (count == 0) {
+			return inCheck ? -MATE + ply : 0;
+		}
+		scoreMoves(ply, count, tableMove);
+
+		int best = -INFINITY;
+		int bestHere = Move.NONE;
+		for (int i = 0; i < count; i++) {
+			int move = pickNext(ply, i, count);
+			chessMatch.makeMove(move);
+			int score;
+			if (i == 0) {
+				score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+			}
+			else {
+				score = -negamax(depth - 1, ply + 1, -alpha - 1, -alpha);
+				if (score > alpha && score < beta) {
+					score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+				}
+			}
+			chessMatch.undoMove();
+			if (stopped.get()) {
+				return 0;
+			}
+
+			if (score > best) {
+				best = score;
+				bestHere = move;
+				if (ply == 0) {
+					rootMove = move;
+				}
+			}
+			if (score > alpha) {
+				alpha = score;
+			}
+			if (alpha >= beta) {
+				if (!Move.isCapture(move) && !Move.isPromotion(move)) {
+					updateQuietStats(move, ply, depth);
+				}
+				break;
+			}
+		}
+
+		int flag = best <= originalAlpha ? TranspositionTable.UPPER_BOUND
+				: best >= beta ? TranspositionTable.LOWER_BOUND : TranspositionTable.EXACT;
+		table.store(key, bestHere, toTable(best, ply), depth, flag);
+		return best;
+	}
+
+	/**
+	 * Continua a busca só com capturas e promoções a dama até a posição ficar "quieta",
+	 * para que a avaliação estática não seja feita no meio de uma troca.
+	 * Em xeque, todas as jogadas são consideradas.
+	 */
+	private int quiescence(int ply, int alpha, int beta) {
+		nodes++;
+		if (ply >= MAX_PLY) {
+			return Evaluation.evaluate(position);
+		}
+		int side = position.getSideToMove();
+		boolean inCheck = position.isInCheck(side);
+		int best = -INFINITY;
+		if (!inCheck) {
+			best = Evaluation.evaluate(position);
+			if (best >= beta) {
+				return best;
+			}
+			if (best > alpha) {
+				alpha = best;
+			}
+		}
+
+		int[] list = moves[ply];
+		int count = MoveGenerator.generateLegalMoves(position, side, list);
+		if (count == 0) {
+			return inCheck ? -MATE + ply : 0;
+		}
+		scoreMoves(ply, count, Move.NONE);
+
+		for (int i = 0; i < count; i++) {
+			int move = pickNext(ply, i, count);
+			if (!inCheck && !Move.isCapture(move) && !(Move.isPromotion(move) && Move.promotion(move) == Bitboard.QUEEN)) {
+				continue;
+			}
+			chessMatch.makeMove(move);
+			int score = -quiescence(ply + 1, -beta, -alpha);
+			chessMatch.undoMove();
+			if (stopped.get()) {
+				return 0;
+			}
+
+			if (score > best) {
+				best = score;
+			}
+			if (score > alpha) {
+				alpha = score;
+			}
+			if (alpha >= beta) {
+				break;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Só a linha atual da busca é conferida: uma posição repetida nela é tratada como empate.
+	 */
+	private boolean isRepetition(int ply) {
+		for (int i = ply - 2; i >= 0; i -= 2) {
+			if (keys[i] == keys[ply]) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Nota exata da tabela de finais: um mate em n meias-jogadas a partir daqui vale como um mate no ply + n.
+	 */
+	private int tablebaseScore(int ply, int wdl) {
+		int distance = EndgameTablebase.probeDistance(position);
+		if (wdl == EndgameTablebase.WIN) return MATE - ply - distance;
+		if (wdl == EndgameTablebase.LOSS) return -MATE + ply + distance;
+		return 0;
+	}
+
+	private void scoreMoves(int ply, int count, int tableMove) {
+		int[] list = moves[ply];
+		int[] scores = moveScores[ply];
+		for (int i = 0; i < count; i++) {
+			int move = list[i];
+			int from = Move.from(move);
+			int to = Move.to(move);
+			int score;
+			if (move == tableMove) {
+				score = TABLE_MOVE_SCORE;
+			}
+			else if (Move.isCapture(move)) {
+				// MVV-LVA: a vítima mais valiosa primeiro, o atacante menos valioso como desempate
+				int victim = Move.flags(move) == Move.EN_PASSANT ? Bitboard.PAWN : Bitboard.typeOf(position.pieceAt(to));
+				int attacker = Bitboard.typeOf(position.pieceAt(from));
+				score = CAPTURE_SCORE + Evaluation.PIECE_VALUES[victim] * 8 - attacker;
+				if (Move.isPromotion(move)) {
+					score += Evaluation.PIECE_VALUES[Move.promotion(move)];
+				}
+			}
+			else if (Move.isPromotion(move)) {
+				score = PROMOTION_SCORE + Move.promotion(move);
+			}
+			else if (move == killers[ply][0]) {
+				score = FIRST_KILLER_SCORE;
+			}
+			else if (move == killers[ply][1]) {
+				score = SECOND_KILLER_SCORE;
+			}
+			else {
+				score = history[position.pieceAt(from)][to];
+			}
+			scores[i] = score;
+		}
+	}
+
+	/**
+	 * Ordenação por seleção preguiçosa: traz para a posição "index" a jogada de maior nota ainda não tentada.
+	 */
+	private int pickNext(int ply, int index, int count) {
+		int[] list = moves[ply];
+		int[] scores = moveScores[ply];
+		int best = index;
+		for (int i = index + 1; i < count; i++) {
+			if (scores[i] > scores[best]) {
+				best = i;
+			}
+		}
+		int move = list[best];
+		list[best] = list[index];
+		list[index] = move;
+		int score = scores[best];
+		scores[best] = scores[index];
+		scores[index] = score;
+		return move;
+	}
+
+	private void updateQuietStats(int move, int ply, int depth) {
+		if (killers[ply][0] != move) {
+			killers[ply][1] = killers[ply][0];
+			killers[ply][0] = move;
+		}
+		int[] pieceHistory = history[position.pieceAt(Move.from(move))];
+		int to = Move.to(move);
+		pieceHistory[to] = Math.min(MAX_HISTORY, pieceHistory[to] + depth * depth);
+	}
+
+	// notas de mate são guardadas relativas à posição, não à raiz
+	private static int toTable(int score, int ply) {
+		if (score >= MATE_BOUND) return score + ply;
+		if (score <= -MATE_BOUND) return score - ply;
+		return score;
+	}
+
+	private static int fromTable(int score, int ply) {
+		if (score >= MATE_BOUND) return score - ply;
+		if (score <= -MATE_BOUND) return score + ply;
+		return score;
+	}
+
+}
@@ -0,0 +1,70 @@
+package chess.engine;
+
+import chess.ChessMatch;
+import chess.Move;
+
+/**
+ * Motor de xadrez local, alternativa ao {@link chess.api.StockfishAPI} que não depende de rede.
+ * Mantém o mesmo contrato: recebe uma posição FEN e uma profundidade e devolve a melhor jogada.
+ * Posições cobertas pelo {@link EndgameTablebase} são respondidas direto pela tabela, sem busca.
+ * Uma instância serve uma partida inteira: a tabela de transposição e as threads da busca são criadas
+ * uma vez e reaproveitadas a cada jogada, então o que foi aprendido numa jogada ajuda nas seguintes.
+ */
+public class SearchEngine implements AutoCloseable {
+
+	public static final int DEFAULT_TABLE_SIZE_MB = 16;
+
+	private final ParallelSearch search;
+
+	/**
+	 * Igual a {@link #SearchEngine(int, int)} com a tabela de {@link #DEFAULT_TABLE_SIZE_MB}.
+	 */
+	public SearchEngine(int threads) {
+		this(threads, DEFAULT_TABLE_SIZE_MB);
+	}
+
+	/**
+	 * @param threads Quantidade de threads da busca (Lazy SMP); com 1, equivale à busca simples.
+	 * @param tableSizeMb Tamanho da tabela de transposição, em megabytes.
+	 */
+	public SearchEngine(int threads, int tableSizeMb) {
+		EndgameTablebase.load();
+		search = new ParallelSearch(threads, new TranspositionTable(tableSizeMb));
+	}
+
+	/**
+	 * Busca a melhor jogada para a posição. Chamadas de várias threads são atendidas uma de cada vez.
+	 * @param fen A posição no formato FEN.
+	 * @param depth A profundidade da busca, em meias-jogadas.
+	 * @return A jogada em notação de coordenadas longas (ex: "e2e4", "e7e8q"), ou null se não houver jogada legal.
+	 */
+	public synchronized String getBestMove(String fen, int depth) {
+		ChessMatch chessMatch = new ChessMatch(fen);
+		int move = EndgameTablebase.getBestMove(chessMatch);
+		if (move == Move.NONE) {
+			move = search.search(chessMatch, depth);
+		}
+		return move == Move.NONE ? null : Move.toUci(move);
+	}
+
+	/**
+	 * Avisa que a próxima posição é de outra partida: limpa a tabela de transposição.
+	 */
+	public synchronized void newGame() {
+		search.getTable().clear();
+	}
+
+	@Override
+	public void close() {
+		search.close();
+	}
+
+	/**
+	 * @return A quantidade de threads configurada pela propriedade "chess.engine.threads"
+	 * (ex: -Dchess.engine.threads=4), ou a quantidade de processadores disponíveis.
+	 */
+	public static int defaultThreads() {
+		return Math.max(1, Integer.getInteger("chess.engine.threads", Runtime.getRuntime().availableProcessors()));
+	}
+
+}
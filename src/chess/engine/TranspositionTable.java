@@ -0,0 +1,84 @@
+package chess.engine;
+
+import java.util.Arrays;
+
+/**
+ * Tabela de transposição: guarda, pela chave de Zobrist da posição, a melhor jogada encontrada,
+ * a nota, a profundidade da busca e se a nota é exata ou só um limite.
+ * Cada entrada ocupa dois longs em arrays paralelos: os dados empacotados e a chave XOR os dados.
+ * A tabela pode ser compartilhada entre threads sem travas: uma entrada escrita pela metade
+ * por duas threads ao mesmo tempo não confere com a chave na leitura e é tratada como ausente.
+ */
+public class TranspositionTable {
+
+	public static final int EXACT = 1;
+	public static final int LOWER_BOUND = 2;
+	public static final int UPPER_BOUND = 3;
+
+	private static final int ENTRY_BYTES = 16;
+
+	private final long[] keys;
+	private final long[] data;
+	private final int mask;
+
+	/**
+	 * @param sizeMb Tamanho aproximado em megabytes; o número de entradas é arredondado para uma potência de 2.
+	 */
+	public TranspositionTable(int sizeMb) {
+		long entries = Long.highestOneBit(Math.max(1L, (long)sizeMb * 1024 * 1024 / ENTRY_BYTES));
+		int size = (int)Math.min(entries, 1 << 30);
+		keys = new long[size];
+		data = new long[size];
+		mask = size - 1;
+	}
+
+	/**
+	 * @return Os dados empacotados da entrada da posição, ou 0 se ela não estiver na tabela.
+	 */
+	public long probe(long key) {
+		int index = (int)key & mask;
+		long entry = data[index];
+		return (keys[index] ^ entry) == key ? entry : 0L;
+	}
+
+	public void store(long key, int move, int score, int depth, int flag) {
+		int index = (int)key & mask;
+		long old = data[index];
+		// mantém a entrada mais profunda da mesma posição se a nova não trouxer jogada
+		if ((keys[index] ^ old) == key && depth < depth(old) && move == 0) {
+			return;
+		}
+		long entry = pack(move, score, depth, flag);
+		keys[index] = key ^ entry;
+		data[index] = entry;
+	}
+
+	public void clear() {
+		Arrays.fill(keys, 0L);
+		Arrays.fill(data, 0L);
+	}
+
+	static long pack(int move, int score, int depth, int flag) {
+		return (move & 0x7FFFFL)
+				| ((long)(score & 0xFFFF) << 19)
+				| ((long)(depth & 0xFF) << 35)
+				| ((long)flag << 43);
+	}
+
+	public static int move(long entry) {
+		return (int)(entry & 0x7FFFF);
+	}
+
+	public static int score(long entry) {
+		return (short)(entry >>> 19);
+	}
+
+	public static int depth(long entry) {
+		return (int)(entry >>> 35) & 0xFF;
+	}
+
+	public static int flag(long entry) {
+		return (int)(entry >>> 43) & 3;
+	}
+
+}
@@ -0,0 +1,435 @@
+package chess.pgn;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import chess.ChessMatch;
+import chess.Move;
+
+/**
+ * Base local de partidas com um índice por posição. Cada posição alcançada em cada partida guardada
+ * entra no índice com a chave de Zobrist da posição ({@link ChessMatch#getPositionHash()}), o número
+ * da partida e a jogada feita a partir dela. O índice é um arquivo ordenado pela chave e mapeado na memória,
+ * então "todas as partidas que passam por esta posição" e "frequência das jogadas daqui" são buscas binárias.
+ *
+ * Arquivos no diretório da base:
+ * <pre>
+ *  games.dat      as partidas (etiquetas, resultado e jogadas), uma atrás da outra
+ *  games.idx      a posição de cada partida em games.dat
+ *  positions.idx  entradas de 16 bytes (chave, partida, jogada), ordenadas por chave e partida
+ * </pre>
+ * A montagem ordena o índice por partes de tamanho fixo, gravadas em arquivos temporários e depois
+ * intercaladas, então a memória usada não depende da quantidade de partidas.
+ */
+public class GameDatabase implements Closeable {
+
+	private static final String GAMES_FILE = "games.dat";
+	private static final String OFFSETS_FILE = "games.idx";
+	private static final String POSITIONS_FILE = "positions.idx";
+
+	private static final int ENTRY_SIZE = 16;
+	private static final int RUN_ENTRIES = 1 << 21;
+	private static final int SEGMENT_SHIFT = 26; // 2^26 entradas (1 GB) por mapeamento
+	private static final int SEGMENT_ENTRIES = 1 << SEGMENT_SHIFT;
+
+	private final FileChannel games;
+	private final LongBuffer offsets;
+	private final int gameCount;
+	private final MappedByteBuffer[] segments;
+	private final long entryCount;
+
+	private GameDatabase(Path directory) throws IOException {
+		games = FileChannel.open(directory.resolve(GAMES_FILE), StandardOpenOption.READ);
+		try (FileChannel channel = FileChannel.open(directory.resolve(OFFSETS_FILE), StandardOpenOption.READ)) {
+			offsets = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).asLongBuffer();
+		}
+		gameCount = offsets.capacity() - 1;
+		try (FileChannel channel = FileChannel.open(directory.resolve(POSITIONS_FILE), StandardOpenOption.READ)) {
+			entryCount = channel.size() / ENTRY_SIZE;
+			segments = new MappedByteBuffer[(int)((entryCount + SEGMENT_ENTRIES - 1) >>> SEGMENT_SHIFT)];
+			for (int i = 0; i < segments.length; i++) {
+				long start = (long)i * SEGMENT_ENTRIES * ENTRY_SIZE;
+				segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min((long)SEGMENT_ENTRIES * ENTRY_SIZE, channel.size() - start));
+			}
+		}
+	}
+
+	/**
+	 * Abre uma base já montada por {@link #build(Path, Path)}.
+	 */
+	public static GameDatabase open(Path directory) throws IOException {
+		return new GameDatabase(directory);
+	}
+
+	/**
+	 * Monta a base a partir de um arquivo PGN, substituindo a que existir no diretório, e a abre.
+	 * Partidas inválidas são ignoradas.
+	 */
+	public static GameDatabase build(Path pgn, Path directory) throws IOException {
+		Files.createDirectories(directory);
+		List<Path> runs = new ArrayList<>();
+		long[] keys = new long[RUN_ENTRIES];
+		long[] values = new long[RUN_ENTRIES];
+		int size = 0;
+		int gameId = 0;
+		long offset = 0;
+		ByteArrayOutputStream record = new ByteArrayOutputStream(1 << 12);
+		DataOutputStream recordOut = new DataOutputStream(record);
+
+		try (PgnReader reader = PgnReader.open(pgn);
+				DataOutputStream gamesOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(directory.resolve(GAMES_FILE))));
+				DataOutputStream offsetsOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(directory.resolve(OFFSETS_FILE))))) {
+			while (true) {
+				PgnGame game;
+				try {
+					game = reader.next();
+				}
+				catch (PgnException e) {
+					continue;
+				}
+				if (game == null) {
+					break;
+				}
+				record.reset();
+				writeGame(recordOut, game);
+				offsetsOut.writeLong(offset);
+				record.writeTo(gamesOut);
+				offset += record.size();
+
+				// as posições são recalculadas repetindo as jogadas desde o início, com makeMove
+				ChessMatch chessMatch = new ChessMatch(game.getInitialFen());
+				int[] moves = game.getMoves();
+				for (int ply = 0; ply <= moves.length; ply++) {
+					if (size == RUN_ENTRIES) {
+						runs.add(writeRun(directory, keys, values, size));
+						size = 0;
+					}
+					int move = ply < moves.length ? moves[ply] : Move.NONE;
+					keys[size] = chessMatch.getPositionHash();
+					values[size] = (long)gameId << 32 | (move & 0xFFFFFFFFL);
+					size++;
+					if (move != Move.NONE) {
+						chessMatch.makeMove(move);
+					}
+				}
+				gameId++;
+			}
+			offsetsOut.writeLong(offset);
+		}
+		if (size > 0 || runs.isEmpty()) {
+			runs.add(writeRun(directory, keys, values, size));
+		}
+		mergeRuns(runs, directory.resolve(POSITIONS_FILE));
+		return open(directory);
+	}
+
+	public int getGameCount() {
+		return gameCount;
+	}
+
+	/**
+	 * @return Quantidade de entradas do índice (posições alcançadas, somando todas as partidas).
+	 */
+	public long getPositionCount() {
+		return entryCount;
+	}
+
+	/**
+	 * @return Os números das partidas que passam pela posição atual da partida, em ordem crescente.
+	 */
+	public int[] findGames(ChessMatch chessMatch) {
+		return findGames(chessMatch.getPositionHash(), Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @param limit Quantidade máxima de partidas devolvidas.
+	 * @return Os números das partidas que passam pela posição com a chave informada, em ordem crescente.
+	 */
+	public int[] findGames(long positionKey, int limit) {
+		long first = firstEntry(positionKey);
+		int[] found = new int[16];
+		int count = 0;
+		for (long i = first; i < entryCount && key(i) == positionKey && count < limit; i++) {
+			int game = (int)(value(i) >>> 32);
+			// a mesma partida pode passar pela posição mais de uma vez (repetição)
+			if (count > 0 && found[count - 1] == game) {
+				continue;
+			}
+			if (count == found.length) {
+				found = Arrays.copyOf(found, count * 2);
+			}
+			found[count++] = game;
+		}
+		return Arrays.copyOf(found, count);
+	}
+
+	/**
+	 * @return Quantas vezes cada jogada foi feita a partir da posição atual da partida, da mais
+	 * frequente para a menos frequente, com as jogadas em notação de coordenadas longas.
+	 */
+	public Map<String, Long> getMoveFrequencies(ChessMatch chessMatch) {
+		return getMoveFrequencies(chessMatch.getPositionHash());
+	}
+
+	public Map<String, Long> getMoveFrequencies(long positionKey) {
+		Map<Integer, Long> counts = new LinkedHashMap<>();
+		for (long i = firstEntry(positionKey); i < entryCount && key(i) == positionKey; i++) {
+			int move = (int)value(i);
+			if (move != Move.NONE) {
+				counts.merge(move, 1L, Long::sum);
+			}
+		}
+		Map<String, Long> frequencies = new LinkedHashMap<>();
+		counts.entrySet().stream()
+				.sorted(Map.Entry.<Integer, Long>comparingByValue().reversed())
+				.forEach(e -> frequencies.put(Move.toUci(e.getKey()), e.getValue()));
+		return frequencies;
+	}
+
+	/**
+	 * Lê a partida guardada e a repete em um ChessMatch, como o {@link PgnReader} faria.
+	 */
+	public PgnGame getGame(int id) throws IOException {
+		if (id < 0 || id >= gameCount) {
+			throw new IndexOutOfBoundsException("Game " + id + " is not in the database (" + gameCount + " games)");
+		}
+		long start = offsets.get(id);
+		ByteBuffer record = ByteBuffer.allocate((int)(offsets.get(id + 1) - start));
+		while (record.hasRemaining()) {
+			if (games.read(record, start + record.position()) < 0) {
+				throw new EOFException("Truncated game " + id);
+			}
+		}
+		record.flip();
+		return readGame(record);
+	}
+
+	@Override
+	public void close() throws IOException {
+		games.close();
+	}
+
+	private long key(long index) {
+		return segments[(int)(index >>> SEGMENT_SHIFT)].getLong((int)(index & (SEGMENT_ENTRIES - 1)) * ENTRY_SIZE);
+	}
+
+	private long value(long index) {
+		return segments[(int)(index >>> SEGMENT_SHIFT)].getLong((int)(index & (SEGMENT_ENTRIES - 1)) * ENTRY_SIZE + 8);
+	}
+
+	/**
+	 * Primeira entrada com chave maior ou igual à informada.
+	 */
+	private long firstEntry(long key) {
+		long low = 0;
+		long high = entryCount;
+		while (low < high) {
+			long middle = (low + high) >>> 1;
+			if (key(middle) < key) {
+				low = middle + 1;
+			}
+			else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	// Formato de cada partida: resultado, quantidade de etiquetas, pares nome/valor, quantidade de jogadas e as jogadas.
+	// Os textos levam o tamanho em int, e não o limite de 64 KB do writeUTF: uma etiqueta enorme num PGN
+	// malformado não pode abortar a montagem da base inteira
+	private static void writeGame(DataOutputStream out, PgnGame game) throws IOException {
+		writeString(out, game.getResult());
+		Map<String, String> tags = game.getTags();
+		out.writeInt(tags.size());
+		for (Map.Entry<String, String> tag : tags.entrySet()) {
+			writeString(out, tag.getKey());
+			writeString(out, tag.getValue());
+		}
+		int[] moves = game.getMoves();
+		out.writeInt(moves.length);
+		for (int move : moves) {
+			out.writeInt(move);
+		}
+	}
+
+	private static PgnGame readGame(ByteBuffer record) throws IOException {
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record.array(), 0, record.limit()))) {
+			String result = readString(in);
+			int tagCount = in.readInt();
+			Map<String, String> tags = new LinkedHashMap<>();
+			for (int i = 0; i < tagCount; i++) {
+				tags.put(readString(in), readString(in));
+			}
+			int[] moves = new int[in.readInt()];
+			ChessMatch chessMatch = new ChessMatch(tags.getOrDefault("FEN", PgnGame.STANDARD_FEN));
+			for (int i = 0; i < moves.length; i++) {
+				moves[i] = in.readInt();
+				chessMatch.performMove(moves[i]);
+			}
+			return new PgnGame(tags, moves, result, chessMatch);
+		}
+	}
+
+	private static void writeString(DataOutputStream out, String s) throws IOException {
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static Path writeRun(Path directory, long[] keys, long[] values, int size) throws IOException {
+		sort(keys, values, 0, size - 1);
+		Path run = Files.createTempFile(directory, "positions", ".run");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run), 1 << 16))) {
+			for (int i = 0; i < size; i++) {
+				out.writeLong(keys[i]);
+				out.writeLong(values[i]);
+			}
+		}
+		return run;
+	}
+
+	/**
+	 * Intercala as partes já ordenadas no arquivo final do índice e apaga as partes.
+	 */
+	private static void mergeRuns(List<Path> runs, Path target) throws IOException {
+		PriorityQueue<RunReader> queue = new PriorityQueue<>();
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(target), 1 << 16))) {
+			for (Path run : runs) {
+				RunReader reader = new RunReader(run);
+				if (reader.advance()) {
+					queue.add(reader);
+				}
+				else {
+					reader.close();
+				}
+			}
+			while (!queue.isEmpty()) {
+				RunReader reader = queue.poll();
+				out.writeLong(reader.key);
+				out.writeLong(reader.value);
+				if (reader.advance()) {
+					queue.add(reader);
+				}
+				else {
+					reader.close();
+				}
+			}
+		}
+		finally {
+			for (RunReader reader : queue) {
+				reader.close();
+			}
+			for (Path run : runs) {
+				Files.deleteIfExists(run);
+			}
+		}
+	}
+
+	private static int compare(long key1, long value1, long key2, long value2) {
+		int c = Long.compare(key1, key2);
+		return c != 0 ? c : Long.compare(value1, value2);
+	}
+
+	/**
+	 * Quicksort das entradas (chave, valor) guardadas em dois vetores paralelos.
+	 */
+	private static void sort(long[] keys, long[] values, int low, int high) {
+		while (high - low > 16) {
+			int middle = (low + high) >>> 1;
+			long pivotKey = keys[middle];
+			long pivotValue = values[middle];
+			int i = low;
+			int j = high;
+			while (i <= j) {
+				while (compare(keys[i], values[i], pivotKey, pivotValue) < 0) i++;
+				while (compare(keys[j], values[j], pivotKey, pivotValue) > 0) j--;
+				if (i <= j) {
+					swap(keys, values, i++, j--);
+				}
+			}
+			// a parte menor é ordenada por recursão e a maior no próprio laço, limitando a pilha
+			if (j - low < high - i) {
+				sort(keys, values, low, j);
+				low = i;
+			}
+			else {
+				sort(keys, values, i, high);
+				high = j;
+			}
+		}
+		for (int i = low + 1; i <= high; i++) {
+			for (int j = i; j > low && compare(keys[j - 1], values[j - 1], keys[j], values[j]) > 0; j--) {
+				swap(keys, values, j - 1, j);
+			}
+		}
+	}
+
+	private static void swap(long[] keys, long[] values, int i, int j) {
+		long key = keys[i];
+		keys[i] = keys[j];
+		keys[j] = key;
+		long value = values[i];
+		values[i] = values[j];
+		values[j] = value;
+	}
+
+	private static class RunReader implements Comparable<RunReader>, Closeable {
+		private final DataInputStream in;
+		long key;
+		long value;
+
+		RunReader(Path run) throws IOException {
+			in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run), 1 << 16));
+		}
+
+		boolean advance() throws IOException {
+			try {
+				key = in.readLong();
+				value = in.readLong();
+				return true;
+			}
+			catch (EOFException e) {
+				return false;
+			}
+		}
+
+		@Override
+		public int compareTo(RunReader other) {
+			return compare(key, value, other.key, other.value);
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+	}
+
+}
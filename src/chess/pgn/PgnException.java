@@ -0,0 +1,40 @@
+package chess.pgn;
+
+import chess.ChessException;
+
+public class PgnException extends ChessException {
+	private static final long serialVersionUID = 1L;
+
+	private final String reason;
+	private final long line;
+
+	public PgnException(String msg, long line) {
+		super(msg + " (line " + line + ")");
+		this.reason = msg;
+		this.line = line;
+	}
+
+	/**
+	 * Erro fora da leitura de um arquivo (ex: uma jogada em SAN inválida); a linha fica 0.
+	 */
+	public PgnException(String msg) {
+		super(msg);
+		this.reason = msg;
+		this.line = 0;
+	}
+
+	/**
+	 * @return O motivo do erro, sem a linha.
+	 */
+	public String getReason() {
+		return reason;
+	}
+
+	/**
+	 * @return A linha do arquivo em que a partida com problema começa, ou 0 se o erro não veio de um arquivo.
+	 */
+	public long getLine() {
+		return line;
+	}
+
+}
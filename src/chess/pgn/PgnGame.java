@@ -0,0 +1,103 @@
+package chess.pgn;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import chess.ChessMatch;
+import chess.Color;
+
+/**
+ * Uma partida lida de um arquivo PGN: as etiquetas (tags), as jogadas já validadas e o resultado.
+ * A partida repetida até a última jogada fica disponível em {@link #getMatch()}.
+ */
+public class PgnGame {
+
+	public static final String STANDARD_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+	private final Map<String, String> tags;
+	private final int[] moves;
+	private final String result;
+	private final ChessMatch chessMatch;
+
+	PgnGame(Map<String, String> tags, int[] moves, String result, ChessMatch chessMatch) {
+		this.tags = tags;
+		this.moves = moves;
+		this.result = result;
+		this.chessMatch = chessMatch;
+	}
+
+	/**
+	 * Monta a partida a partir de um ChessMatch já jogado, para ser gravada pelo {@link PgnWriter}.
+	 * @param tags Etiquetas extras (ex: "Event", "White"); as que faltarem do "Seven Tag Roster" são preenchidas com "?".
+	 */
+	public static PgnGame of(ChessMatch chessMatch, Map<String, String> tags) {
+		String result = tags.containsKey("Result") ? tags.get("Result") : resultOf(chessMatch);
+		Map<String, String> all = new LinkedHashMap<>();
+		for (String name : new String[] { "Event", "Site", "Date", "Round", "White", "Black" }) {
+			all.put(name, tags.getOrDefault(name, "?"));
+		}
+		all.put("Result", result);
+		if (!chessMatch.getInitialFen().equals(STANDARD_FEN)) {
+			all.put("SetUp", "1");
+			all.put("FEN", chessMatch.getInitialFen());
+		}
+		for (Map.Entry<String, String> tag : tags.entrySet()) {
+			all.putIfAbsent(tag.getKey(), tag.getValue());
+		}
+		return new PgnGame(all, chessMatch.getMoveHistory(), result, chessMatch);
+	}
+
+	/**
+	 * @return "1-0" ou "0-1" depois de um xeque-mate, "1/2-1/2" depois de um afogamento, senão "*".
+	 */
+	public static String resultOf(ChessMatch chessMatch) {
+		if (chessMatch.getCheckMate()) {
+			// depois do mate o jogador atual continua sendo o vencedor
+			return chessMatch.getCurrentPlayer() == Color.WHITE ? "1-0" : "0-1";
+		}
+		return chessMatch.getStalemate() ? "1/2-1/2" : "*";
+	}
+
+	public Map<String, String> getTags() {
+		return Collections.unmodifiableMap(tags);
+	}
+
+	public String getTag(String name) {
+		return tags.get(name);
+	}
+
+	/**
+	 * @return A FEN da posição inicial: a da etiqueta "FEN", ou a posição inicial padrão.
+	 */
+	public String getInitialFen() {
+		return tags.getOrDefault("FEN", STANDARD_FEN);
+	}
+
+	/**
+	 * @return As jogadas, codificadas por {@link chess.Move}, da primeira à última.
+	 */
+	public int[] getMoves() {
+		return Arrays.copyOf(moves, moves.length);
+	}
+
+	public int getMoveCount() {
+		return moves.length;
+	}
+
+	/**
+	 * @return "1-0", "0-1", "1/2-1/2" ou "*".
+	 */
+	public String getResult() {
+		return result;
+	}
+
+	/**
+	 * @return A partida na posição depois da última jogada.
+	 */
+	public ChessMatch getMatch() {
+		return chessMatch;
+	}
+
+}
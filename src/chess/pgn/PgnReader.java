@@ -0,0 +1,315 @@
+package chess.pgn;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import chess.Bitboard;
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.Move;
+import chess.MoveGenerator;
+
+/**
+ * Leitor de arquivos PGN em fluxo: lê uma partida por vez, com um buffer de tamanho fixo, então
+ * arquivos de qualquer tamanho são lidos com memória limitada. Cada jogada em SAN é resolvida contra
+ * as jogadas legais de um {@link ChessMatch} e aplicada nele, então toda partida devolvida é válida.
+ * Comentários, variantes e anotações (NAGs) são ignorados.
+ */
+public class PgnReader implements Closeable {
+
+	private static final int EOF = -1;
+
+	private final Reader in;
+	private final char[] buffer = new char[1 << 16];
+	private int position;
+	private int limit;
+	private long line = 1;
+
+	private final StringBuilder token = new StringBuilder(32);
+	private final int[] legalMoves = new int[MoveGenerator.MAX_MOVES];
+	private int[] moves = new int[256];
+
+	public PgnReader(Reader in) {
+		this.in = in;
+	}
+
+	/**
+	 * Abre o arquivo em UTF-8; bytes inválidos (ex: arquivos antigos em Latin-1) são trocados, sem erro.
+	 */
+	public static PgnReader open(Path file) throws IOException {
+		return new PgnReader(new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Lê a próxima partida.
+	 * @return A partida, ou null no fim do arquivo.
+	 * @throws PgnException Se a partida tiver uma etiqueta malformada, uma FEN inválida ou uma jogada ilegal
+	 * ou ambígua. A partida inteira é consumida antes, então a leitura pode continuar na próxima.
+	 */
+	public PgnGame next() throws IOException {
+		int c = skipWhitespace();
+		if (c == EOF) {
+			return null;
+		}
+		long gameLine = line;
+		String error = null;
+
+		Map<String, String> tags = new LinkedHashMap<>();
+		while (c == '[') {
+			if (!readTag(tags) && error == null) {
+				error = "Malformed tag";
+			}
+			c = skipWhitespace();
+		}
+
+		ChessMatch chessMatch = null;
+		try {
+			chessMatch = new ChessMatch(tags.getOrDefault("FEN", PgnGame.STANDARD_FEN));
+		}
+		catch (ChessException e) {
+			if (error == null) {
+				error = e.getMessage();
+			}
+		}
+
+		int count = 0;
+		String result = "*";
+		while (c != EOF && c != '[') {
+			if (c == '{') {
+				skipUntil('}');
+			}
+			else if (c == ';' || c == '%') {
+				skipUntil('\n');
+			}
+			else if (c == '(') {
+				skipVariation();
+			}
+			else {
+				readToken();
+				if (isResult(token)) {
+					result = token.toString();
+					break;
+				}
+				int start = moveNumberLength(token);
+				if (start < token.length() && token.charAt(0) != '$' && error == null && chessMatch != null) {
+					int move = resolve(chessMatch, token.subSequence(start, token.length()));
+					if (move == Move.NONE) {
+						error = "Illegal or ambiguous move \"" + token.substring(start) + "\" at ply " + (count + 1);
+					}
+					else {
+						// o retrato da partida é publicado uma vez só, no fim
+						chessMatch.replayMove(move);
+						if (count == moves.length) {
+							moves = Arrays.copyOf(moves, count * 2);
+						}
+						moves[count++] = move;
+					}
+				}
+			}
+			c = skipWhitespace();
+		}
+
+		if (error != null) {
+			throw new PgnException(error, gameLine);
+		}
+		chessMatch.publish();
+		return new PgnGame(tags, Arrays.copyOf(moves, count), result, chessMatch);
+	}
+
+	/**
+	 * @return A linha atual do arquivo, começando em 1.
+	 */
+	public long getLine() {
+		return line;
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+	private int resolve(ChessMatch chessMatch, CharSequence san) {
+		Bitboard position = chessMatch.getBitboard();
+		int count = MoveGenerator.generateLegalMoves(position, position.getSideToMove(), legalMoves);
+		return San.parse(position, san, legalMoves, count);
+	}
+
+	/**
+	 * Lê uma etiqueta no formato [Nome "valor"], com \" e \\ como escapes dentro do valor.
+	 * @return false se a etiqueta estiver malformada; nesse caso o resto da linha é descartado.
+	 */
+	private boolean readTag(Map<String, String> tags) throws IOException {
+		read(); // '['
+		token.setLength(0);
+		int c = read();
+		while (c == ' ' || c == '\t') {
+			c = read();
+		}
+		while (c != EOF && c != ' ' && c != '\t' && c != '"' && c != ']' && c != '\n') {
+			token.append((char)c);
+			c = read();
+		}
+		String name = token.toString();
+		while (c == ' ' || c == '\t') {
+			c = read();
+		}
+		if (c != '"' || name.isEmpty()) {
+			if (c != '\n') {
+				skipUntil('\n');
+			}
+			return false;
+		}
+		token.setLength(0);
+		c = read();
+		while (c != EOF && c != '"' && c != '\n') {
+			if (c == '\\') {
+				c = read();
+			}
+			token.append((char)c);
+			c = read();
+		}
+		if (c != '"') {
+			return false;
+		}
+		c = read();
+		while (c == ' ' || c == '\t') {
+			c = read();
+		}
+		if (c != ']') {
+			if (c != '\n') {
+				skipUntil('\n');
+			}
+			return false;
+		}
+		tags.put(name, token.toString());
+		return true;
+	}
+
+	/**
+	 * Lê uma palavra do texto das jogadas (jogada, número do lance, NAG ou resultado) para o buffer "token".
+	 */
+	private void readToken() throws IOException {
+		token.setLength(0);
+		int c = peek();
+		while (c != EOF && !Character.isWhitespace(c) && c != '{' && c != '}' && c != '(' && c != ')' && c != ';' && c != '[') {
+			token.append((char)read());
+			c = peek();
+		}
+		if (token.length() == 0) {
+			read(); // caractere solto, como um ')' sem '(': descarta
+		}
+	}
+
+	/**
+	 * Pula uma variante entre parênteses, que pode ter outras variantes e comentários dentro.
+	 */
+	private void skipVariation() throws IOException {
+		read(); // '('
+		int depth = 1;
+		int c;
+		while (depth > 0 && (c = read()) != EOF) {
+			if (c == '(') {
+				depth++;
+			}
+			else if (c == ')') {
+				depth--;
+			}
+			else if (c == '{') {
+				skipUntil('}');
+			}
+		}
+	}
+
+	private void skipUntil(int end) throws IOException {
+		int c;
+		do {
+			c = read();
+		}
+		while (c != EOF && c != end);
+	}
+
+	/**
+	 * @return O próximo caractere que não é espaço, sem consumi-lo.
+	 */
+	private int skipWhitespace() throws IOException {
+		int c = peek();
+		while (c != EOF && Character.isWhitespace(c)) {
+			read();
+			c = peek();
+		}
+		return c;
+	}
+
+	private int peek() throws IOException {
+		if (position == limit && !fill()) {
+			return EOF;
+		}
+		return buffer[position];
+	}
+
+	private int read() throws IOException {
+		if (position == limit && !fill()) {
+			return EOF;
+		}
+		char c = buffer[position++];
+		if (c == '\n') {
+			line++;
+		}
+		return c;
+	}
+
+	private boolean fill() throws IOException {
+		int n = in.read(buffer, 0, buffer.length);
+		if (n <= 0) {
+			return false;
+		}
+		position = 0;
+		limit = n;
+		return true;
+	}
+
+	private static boolean isResult(CharSequence token) {
+		return contentEquals(token, "1-0") || contentEquals(token, "0-1") || contentEquals(token, "1/2-1/2") || contentEquals(token, "*");
+	}
+
+	private static boolean contentEquals(CharSequence a, String b) {
+		if (a.length() != b.length()) {
+			return false;
+		}
+		for (int i = 0; i < b.length(); i++) {
+			if (a.charAt(i) != b.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return Quantos caracteres do início do token são o número do lance ("12.", "12...", ou "12." colado na jogada).
+	 */
+	private static int moveNumberLength(CharSequence token) {
+		int i = 0;
+		while (i < token.length() && Character.isDigit(token.charAt(i))) {
+			i++;
+		}
+		if (i == token.length()) {
+			return i; // só dígitos: número do lance sem ponto
+		}
+		if (token.charAt(i) != '.') {
+			return 0;
+		}
+		while (i < token.length() && token.charAt(i) == '.') {
+			i++;
+		}
+		return i;
+	}
+
+}
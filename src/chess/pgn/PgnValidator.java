@@ -0,0 +1,310 @@
+package chess.pgn;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Validação em lote de um arquivo PGN em várias threads. O arquivo é dividido em pedaços que começam
+ * sempre no início de uma partida (uma linha "[Event "); cada pedaço é lido por um {@link PgnReader}
+ * próprio, em uma tarefa do pool, e cada partida é repetida em um ChessMatch independente.
+ */
+public final class PgnValidator {
+
+	/**
+	 * Quantidade máxima de erros guardados com a mensagem; os demais só entram na contagem.
+	 */
+	public static final int MAX_REPORTED_ERRORS = 1000;
+
+	private static final int MIN_CHUNK_SIZE = 1 << 20;
+	private static final int CHUNKS_PER_THREAD = 8;
+	private static final byte[] GAME_START = "\n[Event ".getBytes(StandardCharsets.US_ASCII);
+
+	private PgnValidator() {
+	}
+
+	/**
+	 * Uma partida inválida: a linha em que ela começa e o motivo.
+	 */
+	public static final class InvalidGame {
+		private final long line;
+		private final String message;
+
+		InvalidGame(long line, String message) {
+			this.line = line;
+			this.message = message;
+		}
+
+		public long getLine() {
+			return line;
+		}
+
+		public String getMessage() {
+			return message;
+		}
+
+		@Override
+		public String toString() {
+			return "line " + line + ": " + message;
+		}
+	}
+
+	/**
+	 * O resultado da validação: quantidade de partidas, jogadas, resultados, erros e o tempo gasto.
+	 */
+	public static final class Report {
+		private long games;
+		private long invalidGames;
+		private long plies;
+		private long lines;
+		private long elapsedNanos;
+		private final Map<String, Long> results = new TreeMap<>();
+		private final List<InvalidGame> errors = new ArrayList<>();
+
+		/**
+		 * @return Quantidade de partidas lidas, válidas ou não.
+		 */
+		public long getGames() {
+			return games;
+		}
+
+		public long getInvalidGames() {
+			return invalidGames;
+		}
+
+		/**
+		 * @return Quantidade de jogadas (meias-jogadas) repetidas nas partidas válidas.
+		 */
+		public long getPlies() {
+			return plies;
+		}
+
+		/**
+		 * @return Quantidade de partidas válidas por resultado ("1-0", "0-1", "1/2-1/2", "*").
+		 */
+		public Map<String, Long> getResults() {
+			return Collections.unmodifiableMap(results);
+		}
+
+		/**
+		 * @return Os primeiros {@link PgnValidator#MAX_REPORTED_ERRORS} erros, na ordem do arquivo.
+		 */
+		public List<InvalidGame> getErrors() {
+			return Collections.unmodifiableList(errors);
+		}
+
+		public long getElapsedNanos() {
+			return elapsedNanos;
+		}
+
+		public double getGamesPerSecond() {
+			return games / Math.max(elapsedNanos / 1e9, 1e-9);
+		}
+
+		/**
+		 * Junta o relatório do pedaço seguinte do arquivo, corrigindo as linhas dos erros dele.
+		 */
+		private void merge(Report next) {
+			games += next.games;
+			invalidGames += next.invalidGames;
+			plies += next.plies;
+			for (Map.Entry<String, Long> result : next.results.entrySet()) {
+				results.merge(result.getKey(), result.getValue(), Long::sum);
+			}
+			for (InvalidGame error : next.errors) {
+				if (errors.size() < MAX_REPORTED_ERRORS) {
+					errors.add(new InvalidGame(lines + error.line, error.message));
+				}
+			}
+			lines += next.lines;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d games (%d invalid), %d plies, results %s, %.3f s, %.0f games/s",
+					games, invalidGames, plies, results, elapsedNanos / 1e9, getGamesPerSecond());
+		}
+	}
+
+	/**
+	 * Valida todas as partidas do arquivo usando as threads do pool.
+	 */
+	public static Report validate(Path file, ForkJoinPool pool) throws IOException {
+		long start = System.nanoTime();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			long chunkSize = Math.max(MIN_CHUNK_SIZE, size / ((long)pool.getParallelism() * CHUNKS_PER_THREAD));
+
+			List<Long> starts = new ArrayList<>();
+			starts.add(0L);
+			for (long target = chunkSize; target < size; target += chunkSize) {
+				long boundary = nextGameStart(channel, Math.max(target, starts.get(starts.size() - 1)));
+				if (boundary >= size) {
+					break;
+				}
+				if (boundary > starts.get(starts.size() - 1)) {
+					starts.add(boundary);
+				}
+				target = boundary;
+			}
+
+			List<ChunkTask> tasks = new ArrayList<>();
+			for (int i = 0; i < starts.size(); i++) {
+				long end = i + 1 < starts.size() ? starts.get(i + 1) : size;
+				tasks.add(new ChunkTask(channel, starts.get(i), end));
+			}
+			for (ChunkTask task : tasks) {
+				pool.execute(task);
+			}
+
+			// os relatórios são juntados na ordem dos pedaços para que as linhas dos erros sejam absolutas
+			Report report = new Report();
+			for (ChunkTask task : tasks) {
+				report.merge(task.join());
+			}
+			report.elapsedNanos = System.nanoTime() - start;
+			return report;
+		}
+		catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Valida as partidas de um único leitor, na thread atual.
+	 */
+	public static Report validate(PgnReader reader) throws IOException {
+		long start = System.nanoTime();
+		Report report = new Report();
+		while (true) {
+			PgnGame game;
+			try {
+				game = reader.next();
+			}
+			catch (PgnException e) {
+				report.games++;
+				report.invalidGames++;
+				if (report.errors.size() < MAX_REPORTED_ERRORS) {
+					report.errors.add(new InvalidGame(e.getLine(), e.getReason()));
+				}
+				continue;
+			}
+			if (game == null) {
+				break;
+			}
+			report.games++;
+			report.plies += game.getMoveCount();
+			report.results.merge(game.getResult(), 1L, Long::sum);
+		}
+		report.lines = reader.getLine() - 1;
+		report.elapsedNanos = System.nanoTime() - start;
+		return report;
+	}
+
+	/**
+	 * @return A posição do primeiro "[Event " no início de uma linha depois de "from", ou o tamanho do arquivo.
+	 */
+	private static long nextGameStart(FileChannel channel, long from) throws IOException {
+		ByteBuffer block = ByteBuffer.allocate(1 << 16);
+		long position = from;
+		long size = channel.size();
+		while (position < size) {
+			block.clear();
+			int n = channel.read(block, position);
+			if (n <= 0) {
+				break;
+			}
+			for (int i = 0; i + GAME_START.length <= n; i++) {
+				int j = 0;
+				while (j < GAME_START.length && block.get(i + j) == GAME_START[j]) {
+					j++;
+				}
+				if (j == GAME_START.length) {
+					return position + i + 1;
+				}
+			}
+			if (n < GAME_START.length) {
+				break;
+			}
+			// o próximo bloco repete o final deste, para achar a marca mesmo se ela estiver dividida entre os dois
+			position += n - GAME_START.length + 1;
+		}
+		return size;
+	}
+
+	private static class ChunkTask extends RecursiveTask<Report> {
+		private static final long serialVersionUID = 1L;
+
+		private final transient FileChannel channel;
+		private final long start;
+		private final long end;
+
+		ChunkTask(FileChannel channel, long start, long end) {
+			this.channel = channel;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected Report compute() {
+			try (PgnReader reader = new PgnReader(new InputStreamReader(new RangeInputStream(channel, start, end), StandardCharsets.UTF_8))) {
+				return validate(reader);
+			}
+			catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	/**
+	 * Lê um trecho do arquivo com leituras posicionais, que podem ser feitas por várias threads no mesmo canal.
+	 */
+	private static class RangeInputStream extends InputStream {
+		private final FileChannel channel;
+		private long position;
+		private final long end;
+
+		RangeInputStream(FileChannel channel, long start, long end) {
+			this.channel = channel;
+			this.position = start;
+			this.end = end;
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] one = new byte[1];
+			return read(one, 0, 1) <= 0 ? -1 : one[0] & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (position >= end) {
+				return -1;
+			}
+			int n = channel.read(ByteBuffer.wrap(b, off, (int)Math.min(len, end - position)), position);
+			if (n > 0) {
+				position += n;
+			}
+			return n;
+		}
+
+		@Override
+		public void close() {
+			// o canal é de quem criou as tarefas
+		}
+	}
+
+}
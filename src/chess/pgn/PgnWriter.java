@@ -0,0 +1,93 @@
+package chess.pgn;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+import chess.Bitboard;
+import chess.ChessMatch;
+import chess.MoveGenerator;
+
+/**
+ * Grava partidas no formato PGN: as etiquetas, uma linha em branco, as jogadas em SAN com os números
+ * dos lances (quebradas em linhas de até 80 caracteres) e o resultado.
+ */
+public class PgnWriter implements Closeable, Flushable {
+
+	private static final int LINE_WIDTH = 80;
+
+	private final Writer out;
+	private final StringBuilder line = new StringBuilder(LINE_WIDTH + 16);
+	private final StringBuilder word = new StringBuilder(16);
+	private final int[] legalMoves = new int[MoveGenerator.MAX_MOVES];
+
+	public PgnWriter(Writer out) {
+		this.out = out;
+	}
+
+	/**
+	 * Grava uma partida jogada, com as etiquetas informadas (veja {@link PgnGame#of(ChessMatch, Map)}).
+	 */
+	public void write(ChessMatch chessMatch, Map<String, String> tags) throws IOException {
+		write(PgnGame.of(chessMatch, tags));
+	}
+
+	public void write(PgnGame game) throws IOException {
+		for (Map.Entry<String, String> tag : game.getTags().entrySet()) {
+			out.write('[');
+			out.write(tag.getKey());
+			out.write(" \"");
+			out.write(tag.getValue().replace("\\", "\\\\").replace("\"", "\\\""));
+			out.write("\"]\n");
+		}
+		out.write('\n');
+
+		// as jogadas são repetidas desde a posição inicial para gerar a SAN de cada uma
+		ChessMatch chessMatch = new ChessMatch(game.getInitialFen());
+		Bitboard position = chessMatch.getBitboard();
+		line.setLength(0);
+		boolean first = true;
+		for (int move : game.getMoves()) {
+			boolean white = position.getSideToMove() == Bitboard.WHITE;
+			if (white || first) {
+				word.setLength(0);
+				word.append(chessMatch.getFullMoveNumber()).append(white ? "." : "...");
+				appendWord();
+			}
+			int count = MoveGenerator.generateLegalMoves(position, position.getSideToMove(), legalMoves);
+			word.setLength(0);
+			San.append(word, chessMatch, move, legalMoves, count);
+			appendWord();
+			chessMatch.replayMove(move);
+			first = false;
+		}
+		word.setLength(0);
+		word.append(game.getResult());
+		appendWord();
+		out.append(line).append("\n\n");
+	}
+
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+
+	private void appendWord() throws IOException {
+		if (line.length() > 0 && line.length() + 1 + word.length() > LINE_WIDTH) {
+			out.append(line).append('\n');
+			line.setLength(0);
+		}
+		if (line.length() > 0) {
+			line.append(' ');
+		}
+		line.append(word);
+	}
+
+}
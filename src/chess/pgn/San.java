@@ -0,0 +1,241 @@
+package chess.pgn;
+
+import chess.Bitboard;
+import chess.ChessMatch;
+import chess.Move;
+import chess.MoveGenerator;
+
+/**
+ * Conversão entre a notação algébrica padrão (SAN, ex: "Nbd7", "exd6", "e8=Q+", "O-O-O") e as jogadas
+ * codificadas por {@link Move}. A jogada é sempre resolvida contra a lista de jogadas legais da posição,
+ * então o resultado já é uma jogada validada.
+ */
+public final class San {
+
+	private static final String PIECE_LETTERS = "PNBRQK";
+
+	private San() {
+	}
+
+	/**
+	 * @return A jogada legal descrita pela notação na posição atual da partida.
+	 * @throws PgnException Se a notação for inválida, ilegal ou ambígua na posição.
+	 */
+	public static int parse(ChessMatch chessMatch, CharSequence san) {
+		Bitboard position = chessMatch.getBitboard();
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		int count = MoveGenerator.generateLegalMoves(position, position.getSideToMove(), moves);
+		int move = parse(position, san, moves, count);
+		if (move == Move.NONE) {
+			throw new PgnException("Invalid, illegal or ambiguous move \"" + san + "\"");
+		}
+		return move;
+	}
+
+	/**
+	 * Igual a {@link #parse(ChessMatch, CharSequence)}, com as jogadas legais já geradas por quem chama.
+	 * @return A jogada, ou {@link Move#NONE} se a notação for inválida, ilegal ou ambígua na posição.
+	 */
+	public static int parse(Bitboard position, CharSequence san, int[] legalMoves, int legalCount) {
+		int end = san.length();
+		// sufixos de xeque, mate e anotações ("+", "#", "!", "?") não mudam a jogada
+		while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0) {
+			end--;
+		}
+		if (end < 2) {
+			return Move.NONE;
+		}
+
+		// #specialmove castling (também aceita zeros, comuns em arquivos antigos)
+		if (san.charAt(0) == 'O' || san.charAt(0) == '0') {
+			int flags;
+			if (equalsCastle(san, end, 5)) {
+				flags = Move.QUEEN_CASTLE;
+			}
+			else if (equalsCastle(san, end, 3)) {
+				flags = Move.KING_CASTLE;
+			}
+			else {
+				return Move.NONE;
+			}
+			for (int i = 0; i < legalCount; i++) {
+				if (Move.flags(legalMoves[i]) == flags) {
+					return legalMoves[i];
+				}
+			}
+			return Move.NONE;
+		}
+
+		int start = 0;
+		int type = Bitboard.PAWN;
+		int letter = PIECE_LETTERS.indexOf(san.charAt(0));
+		if (letter >= 0) {
+			type = letter;
+			start = 1;
+		}
+
+		// #specialmove promotion: "e8=Q" ou "e8Q"; fora isso, a notação sempre termina na fileira do destino
+		int promotion = -1;
+		char last = san.charAt(end - 1);
+		if (last < '1' || last > '8') {
+			promotion = PIECE_LETTERS.indexOf(Character.toUpperCase(last));
+			if (type != Bitboard.PAWN || promotion < Bitboard.KNIGHT || promotion > Bitboard.QUEEN) {
+				return Move.NONE;
+			}
+			end -= san.charAt(end - 2) == '=' ? 2 : 1;
+		}
+
+		if (end - start < 2) {
+			return Move.NONE;
+		}
+		int to = square(san.charAt(end - 2), san.charAt(end - 1));
+		if (to < 0) {
+			return Move.NONE;
+		}
+
+		// o que sobra entre a peça e o destino é a desambiguação (coluna, fileira ou casa) e o "x" da captura
+		int fromFile = -1;
+		int fromRank = -1;
+		for (int i = start; i < end - 2; i++) {
+			char c = san.charAt(i);
+			if (c >= 'a' && c <= 'h') {
+				fromFile = c - 'a';
+			}
+			else if (c >= '1' && c <= '8') {
+				fromRank = c - '1';
+			}
+			else if (c != 'x' && c != ':' && c != '-') {
+				return Move.NONE;
+			}
+		}
+
+		int found = Move.NONE;
+		for (int i = 0; i < legalCount; i++) {
+			int move = legalMoves[i];
+			int from = Move.from(move);
+			if (Move.to(move) != to || Move.isCastle(move) || Bitboard.typeOf(position.pieceAt(from)) != type) {
+				continue;
+			}
+			if ((fromFile >= 0 && (from & 7) != fromFile) || (fromRank >= 0 && (from >>> 3) != fromRank)) {
+				continue;
+			}
+			if (Move.isPromotion(move) ? Move.promotion(move) != promotion : promotion >= 0) {
+				continue;
+			}
+			if (found != Move.NONE) {
+				return Move.NONE; // ambígua
+			}
+			found = move;
+		}
+		return found;
+	}
+
+	/**
+	 * @return A jogada (legal) em SAN, com "+" ou "#" quando ela dá xeque ou xeque-mate.
+	 */
+	public static String toSan(ChessMatch chessMatch, int move) {
+		Bitboard position = chessMatch.getBitboard();
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		int count = MoveGenerator.generateLegalMoves(position, position.getSideToMove(), moves);
+		StringBuilder sb = new StringBuilder(8);
+		append(sb, chessMatch, move, moves, count);
+		return sb.toString();
+	}
+
+	/**
+	 * Igual a {@link #toSan(ChessMatch, int)}, escrevendo no buffer informado e com as jogadas legais já geradas.
+	 * A jogada é aplicada e desfeita na partida para conferir o xeque.
+	 */
+	public static StringBuilder append(StringBuilder sb, ChessMatch chessMatch, int move, int[] legalMoves, int legalCount) {
+		Bitboard position = chessMatch.getBitboard();
+		int from = Move.from(move);
+		int to = Move.to(move);
+		int type = Bitboard.typeOf(position.pieceAt(from));
+
+		if (Move.flags(move) == Move.KING_CASTLE) {
+			sb.append("O-O");
+		}
+		else if (Move.flags(move) == Move.QUEEN_CASTLE) {
+			sb.append("O-O-O");
+		}
+		else {
+			if (type == Bitboard.PAWN) {
+				if (Move.isCapture(move)) {
+					sb.append((char)('a' + (from & 7)));
+				}
+			}
+			else {
+				sb.append(PIECE_LETTERS.charAt(type));
+				appendDisambiguation(sb, position, move, legalMoves, legalCount);
+			}
+			if (Move.isCapture(move)) {
+				sb.append('x');
+			}
+			sb.append((char)('a' + (to & 7))).append((char)('1' + (to >>> 3)));
+			if (Move.isPromotion(move)) {
+				sb.append('=').append(PIECE_LETTERS.charAt(Move.promotion(move)));
+			}
+		}
+
+		chessMatch.makeMove(move);
+		int side = position.getSideToMove();
+		if (position.isInCheck(side)) {
+			sb.append(MoveGenerator.hasLegalMoves(position, side, new int[MoveGenerator.MAX_MOVES]) ? '+' : '#');
+		}
+		chessMatch.undoMove();
+		return sb;
+	}
+
+	/**
+	 * Outra peça do mesmo tipo que também chega ao destino exige a coluna de origem; se ela estiver na
+	 * mesma coluna, a fileira; se houver peças na mesma coluna e na mesma fileira, a casa inteira.
+	 */
+	private static void appendDisambiguation(StringBuilder sb, Bitboard position, int move, int[] legalMoves, int legalCount) {
+		int from = Move.from(move);
+		int piece = position.pieceAt(from);
+		boolean ambiguous = false;
+		boolean sameFile = false;
+		boolean sameRank = false;
+		for (int i = 0; i < legalCount; i++) {
+			int other = Move.from(legalMoves[i]);
+			if (other != from && Move.to(legalMoves[i]) == Move.to(move) && position.pieceAt(other) == piece) {
+				ambiguous = true;
+				sameFile |= (other & 7) == (from & 7);
+				sameRank |= (other >>> 3) == (from >>> 3);
+			}
+		}
+		if (!ambiguous) {
+			return;
+		}
+		if (!sameFile) {
+			sb.append((char)('a' + (from & 7)));
+		}
+		else if (!sameRank) {
+			sb.append((char)('1' + (from >>> 3)));
+		}
+		else {
+			sb.append((char)('a' + (from & 7))).append((char)('1' + (from >>> 3)));
+		}
+	}
+
+	private static boolean equalsCastle(CharSequence san, int end, int length) {
+		if (end != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			char expected = (i & 1) == 0 ? san.charAt(0) : '-';
+			if (san.charAt(i) != expected) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int square(char file, char rank) {
+		if (file < 'a' || file > 'h' || rank < '1' || rank > '8') {
+			return -1;
+		}
+		return (rank - '1') * 8 + (file - 'a');
+	}
+
+}
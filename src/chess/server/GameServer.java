@@ -0,0 +1,324 @@
+package chess.server;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import chess.ChessException;
+import chess.ChessMatch;
+
+/**
+ * Servidor sem interface gráfica que hospeda várias partidas ao mesmo tempo. Os clientes se conectam
+ * por TCP e conversam por linhas de texto; cada conexão é atendida por uma thread virtual própria.
+ *
+ * Comandos (uma resposta de uma linha para cada, começando com "ok" ou "error"):
+ * <pre>
+ *  new [fen]          cria uma partida             ok &lt;id&gt;
+ *  move &lt;id&gt; &lt;uci&gt;    joga (ex: e2e4, e7e8q)       ok &lt;fen&gt;
+ *  fen &lt;id&gt;           posição atual                ok &lt;fen&gt;
+ *  moves &lt;id&gt;         jogadas legais               ok e2e4 d2d4 ...
+ *  status &lt;id&gt;        playing, check, checkmate ou stalemate
+ *  close &lt;id&gt;         encerra a partida            ok
+ *  quit               fecha a conexão
+ * </pre>
+ * As partidas ficam em um ConcurrentHashMap e cada uma tem a sua trava (veja {@link HostedMatch}),
+ * então jogadas em partidas diferentes nunca esperam umas pelas outras. Só criar e encerrar partidas
+ * passam por uma trava comum, e apenas para não coincidir com o início de um instantâneo do diário.
+ *
+ * Com um diretório de diário, as partidas sobrevivem a uma queda do servidor: cada comando que altera uma
+ * partida só é respondido depois de gravado no {@link MatchJournal}, e a cada {@link #CHECKPOINT_INTERVAL_SECONDS}
+ * segundos é gravado um instantâneo de todas as partidas. Ao subir, o servidor recupera as partidas do diário.
+ */
+public class GameServer implements Closeable {
+
+	// os comandos e as respostas são linhas curtas: buffers pequenos deixam cada conexão mais leve
+	private static final int LINE_BUFFER = 512;
+
+	public static final int CHECKPOINT_INTERVAL_SECONDS = 60;
+
+	private final ServerSocket serverSocket;
+	private final Map<Long, HostedMatch> matches = new ConcurrentHashMap<>();
+	private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+	private final AtomicLong nextId = new AtomicLong(1);
+	private final AtomicLong connectionCount = new AtomicLong();
+	private final MatchJournal journal;
+	// criar/encerrar (leitura) contra o início do instantâneo (escrita): o registro no diário e a mudança
+	// no mapa acontecem juntos, do mesmo lado da troca de arquivo
+	private final ReentrantReadWriteLock registry = new ReentrantReadWriteLock();
+	private volatile boolean running;
+
+	/**
+	 * @param port Porta TCP, ou 0 para qualquer porta livre (veja {@link #getPort()}).
+	 */
+	public GameServer(int port) throws IOException {
+		this(port, null);
+	}
+
+	/**
+	 * @param journalDirectory Diretório do diário das partidas, ou null para mantê-las só na memória.
+	 * As partidas gravadas nele são recuperadas antes de o servidor aceitar conexões.
+	 */
+	public GameServer(int port, Path journalDirectory) throws IOException {
+		if (journalDirectory != null) {
+			Map<Long, MatchJournal.Recovered> recovered = new HashMap<>();
+			journal = MatchJournal.open(journalDirectory, recovered);
+			long maxId = 0;
+			for (MatchJournal.Recovered match : recovered.values()) {
+				matches.put(match.id, new HostedMatch(match.id, match.chessMatch, match.plies, journal));
+				maxId = Math.max(maxId, match.id);
+			}
+			nextId.set(maxId + 1);
+			// o diário repetido na recuperação vira um instantâneo, então a próxima recuperação já começa dele
+			writeCheckpoint();
+		}
+		else {
+			journal = null;
+		}
+		serverSocket = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+	}
+
+	/**
+	 * Começa a aceitar conexões, em uma thread virtual, e retorna.
+	 */
+	public void start() {
+		running = true;
+		Thread.ofVirtual().name("game-server").start(this::acceptLoop);
+		if (journal != null) {
+			Thread.ofVirtual().name("game-server-checkpoint").start(this::checkpointLoop);
+		}
+	}
+
+	/**
+	 * Grava um instantâneo de todas as partidas e descarta o diário anterior a ele.
+	 */
+	public void checkpoint() throws IOException {
+		if (journal != null) {
+			writeCheckpoint();
+		}
+	}
+
+	private void writeCheckpoint() throws IOException {
+		long snapshot;
+		List<HostedMatch> open;
+		registry.writeLock().lock();
+		try {
+			snapshot = journal.beginCheckpoint();
+			open = new ArrayList<>(matches.values());
+		}
+		finally {
+			registry.writeLock().unlock();
+		}
+		journal.finishCheckpoint(snapshot, open);
+	}
+
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	public int getMatchCount() {
+		return matches.size();
+	}
+
+	public int getConnectionCount() {
+		return connections.size();
+	}
+
+	public HostedMatch getMatch(long id) {
+		return matches.get(id);
+	}
+
+	/**
+	 * Executa um comando do protocolo e devolve a resposta, sem a quebra de linha.
+	 * Nunca lança exceção: qualquer falha volta como uma resposta "error".
+	 */
+	public String execute(String command) {
+		String[] args = command.trim().split("\\s+", 3);
+		try {
+			switch (args[0]) {
+			case "new":
+				ChessMatch chessMatch = args.length > 1 ? new ChessMatch(command.trim().substring(4).trim()) : new ChessMatch();
+				long id = nextId.getAndIncrement();
+				long created = 0;
+				// o registro de criação vem antes de a partida existir para as outras conexões
+				registry.readLock().lock();
+				try {
+					if (journal != null) {
+						created = journal.appendCreate(id, chessMatch.getFen());
+					}
+					matches.put(id, new HostedMatch(id, chessMatch, 0, journal));
+				}
+				finally {
+					registry.readLock().unlock();
+				}
+				if (journal != null) {
+					journal.awaitDurable(created);
+				}
+				return "ok " + id;
+			case "move":
+				if (args.length < 3) {
+					return "error Usage: move <id> <uci>";
+				}
+				return "ok " + match(args[1]).move(args[2]);
+			case "fen":
+				return "ok " + match(args).getFen();
+			case "moves":
+				return "ok " + match(args).getLegalMoves();
+			case "status":
+				return "ok " + match(args).getStatus();
+			case "close":
+				long closed = id(args);
+				long record = 0;
+				registry.readLock().lock();
+				try {
+					if (matches.remove(closed) == null) {
+						return "error Unknown match " + args[1];
+					}
+					if (journal != null) {
+						record = journal.appendClose(closed);
+					}
+				}
+				finally {
+					registry.readLock().unlock();
+				}
+				if (journal != null) {
+					journal.awaitDurable(record);
+				}
+				return "ok";
+			default:
+				return "error Unknown command " + args[0];
+			}
+		}
+		catch (ChessException e) {
+			return "error " + e.getMessage();
+		}
+		catch (IOException e) {
+			return "error Journal write failed: " + e.getMessage();
+		}
+		catch (RuntimeException e) {
+			// um erro inesperado vira resposta de erro, em vez de derrubar a conexão
+			System.err.println("Command failed: " + command + ": " + e);
+			return "error Internal error: " + e.getMessage();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		running = false;
+		serverSocket.close();
+		for (Socket socket : connections) {
+			socket.close();
+		}
+		if (journal != null) {
+			journal.close();
+		}
+	}
+
+	private HostedMatch match(String[] args) {
+		id(args);
+		return match(args[1]);
+	}
+
+	private HostedMatch match(String id) {
+		HostedMatch match = matches.get(parseId(id));
+		if (match == null) {
+			throw new ChessException("Unknown match " + id);
+		}
+		return match;
+	}
+
+	private static long id(String[] args) {
+		if (args.length < 2) {
+			throw new ChessException("Usage: " + args[0] + " <id>");
+		}
+		return parseId(args[1]);
+	}
+
+	private static long parseId(String id) {
+		try {
+			return Long.parseLong(id);
+		}
+		catch (NumberFormatException e) {
+			throw new ChessException("Invalid match id " + id);
+		}
+	}
+
+	private void acceptLoop() {
+		while (running) {
+			try {
+				Socket socket = serverSocket.accept();
+				socket.setTcpNoDelay(true);
+				connections.add(socket);
+				Thread.ofVirtual().name("game-connection-" + connectionCount.incrementAndGet()).start(() -> serve(socket));
+			}
+			catch (IOException e) {
+				if (running) {
+					System.err.println("Accept failed: " + e.getMessage());
+				}
+			}
+		}
+	}
+
+	private void checkpointLoop() {
+		while (running) {
+			try {
+				Thread.sleep(CHECKPOINT_INTERVAL_SECONDS * 1000L);
+				if (running) {
+					checkpoint();
+				}
+			}
+			catch (InterruptedException e) {
+				return;
+			}
+			catch (IOException e) {
+				System.err.println("Checkpoint failed: " + e.getMessage());
+			}
+		}
+	}
+
+	private void serve(Socket socket) {
+		try (socket;
+				BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8), LINE_BUFFER);
+				Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), LINE_BUFFER)) {
+			String line;
+			while ((line = in.readLine()) != null) {
+				if (line.isBlank()) {
+					continue;
+				}
+				if (line.trim().equals("quit")) {
+					break;
+				}
+				out.write(execute(line));
+				out.write('\n');
+				out.flush();
+			}
+		}
+		catch (SocketException e) {
+			// conexão fechada pelo cliente ou por close()
+		}
+		catch (IOException e) {
+			System.err.println("Connection failed: " + e.getMessage());
+		}
+		finally {
+			connections.remove(socket);
+		}
+	}
+
+}
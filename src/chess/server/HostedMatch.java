@@ -0,0 +1,159 @@
+package chess.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.ReentrantLock;
+
+import chess.Bitboard;
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.Move;
+import chess.MoveGenerator;
+import chess.PositionCodec;
+
+/**
+ * Uma partida hospedada pelo {@link GameServer}. Várias conexões podem jogar a mesma partida, então
+ * toda leitura e jogada passa pela trava da própria partida; partidas diferentes não disputam trava nenhuma.
+ * A trava é um ReentrantLock e não synchronized porque, no JDK 21, uma thread virtual bloqueada dentro de
+ * synchronized prende a thread do sistema que a executa.
+ */
+public class HostedMatch {
+
+	private final long id;
+	private final ChessMatch chessMatch;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final int[] legalMoves = new int[MoveGenerator.MAX_MOVES];
+	private final MatchJournal journal;
+	private int plies;
+	private long lastRecord;
+
+	/**
+	 * @param plies Jogadas já feitas na partida (maior que zero se ela foi recuperada do diário).
+	 * @param journal Diário que recebe as jogadas, ou null.
+	 */
+	HostedMatch(long id, ChessMatch chessMatch, int plies, MatchJournal journal) {
+		this.id = id;
+		this.chessMatch = chessMatch;
+		this.plies = plies;
+		this.journal = journal;
+		if (journal != null) {
+			// chamado dentro de move(), com a trava: os registros de uma partida ficam na ordem das jogadas
+			chessMatch.setMoveListener((match, move) -> lastRecord = journal.appendMove(id, ++this.plies, move));
+		}
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	/**
+	 * Aplica uma jogada em notação de coordenadas longas (ex: "e2e4", "e7e8q").
+	 * Com diário, só retorna depois de a jogada estar gravada em disco.
+	 * @return A FEN da posição depois da jogada.
+	 * @throws ChessException Se a partida já terminou ou a jogada não é legal na posição.
+	 */
+	public String move(String uci) {
+		String fen;
+		long record;
+		lock.lock();
+		try {
+			if (chessMatch.getCheckMate() || chessMatch.getStalemate()) {
+				throw new ChessException("The game is over");
+			}
+			Bitboard position = chessMatch.getBitboard();
+			int count = MoveGenerator.generateLegalMoves(position, position.getSideToMove(), legalMoves);
+			int i = 0;
+			while (i < count && !Move.toUci(legalMoves[i]).equals(uci)) {
+				i++;
+			}
+			if (i == count) {
+				throw new ChessException("Illegal move: " + uci);
+			}
+			chessMatch.performMove(legalMoves[i]);
+			fen = chessMatch.getFen();
+			record = lastRecord;
+		}
+		finally {
+			lock.unlock();
+		}
+		if (journal != null) {
+			try {
+				journal.awaitDurable(record);
+			}
+			catch (IOException e) {
+				throw new ChessException("Journal write failed: " + e.getMessage());
+			}
+		}
+		return fen;
+	}
+
+	/**
+	 * Grava o número da partida, as jogadas feitas e a posição, para o instantâneo do diário.
+	 */
+	void writeSnapshot(ByteBuffer buffer) {
+		lock.lock();
+		try {
+			buffer.putLong(id);
+			buffer.putInt(plies);
+			PositionCodec.encode(chessMatch, buffer);
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	public String getFen() {
+		lock.lock();
+		try {
+			return chessMatch.getFen();
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return As jogadas legais em notação de coordenadas longas, separadas por espaço.
+	 */
+	public String getLegalMoves() {
+		lock.lock();
+		try {
+			if (chessMatch.getCheckMate() || chessMatch.getStalemate()) {
+				return "";
+			}
+			Bitboard position = chessMatch.getBitboard();
+			int count = MoveGenerator.generateLegalMoves(position, position.getSideToMove(), legalMoves);
+			StringBuilder sb = new StringBuilder(count * 5);
+			for (int i = 0; i < count; i++) {
+				if (i > 0) {
+					sb.append(' ');
+				}
+				sb.append(Move.toUci(legalMoves[i]));
+			}
+			return sb.toString();
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return "checkmate", "stalemate", "check" ou "playing".
+	 */
+	public String getStatus() {
+		lock.lock();
+		try {
+			if (chessMatch.getCheckMate()) {
+				return "checkmate";
+			}
+			if (chessMatch.getStalemate()) {
+				return "stalemate";
+			}
+			return chessMatch.getCheck() ? "check" : "playing";
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+}
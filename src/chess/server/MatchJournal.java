@@ -0,0 +1,475 @@
+package chess.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.PositionCodec;
+
+/**
+ * Diário das partidas do {@link GameServer}, para recuperá-las depois de uma queda. Cada partida criada,
+ * jogada aceita e partida encerrada vira um registro acrescentado ao fim do diário; os registros de várias
+ * conexões são gravados juntos, com um único fsync por lote, por uma thread própria.
+ *
+ * Um ponto de controle ({@link #beginCheckpoint()} e {@link #finishCheckpoint}) começa um novo arquivo de diário e grava um instantâneo
+ * compacto de todas as partidas ({@link PositionCodec}, 32 bytes por posição); os arquivos anteriores são apagados.
+ * A recuperação carrega o último instantâneo e repete só o diário gravado depois dele.
+ *
+ * Arquivos no diretório:
+ * <pre>
+ *  journal-N.log   registros: tamanho, CRC-32 e o registro (tipo, partida e dados)
+ *  snapshot-N.dat  as partidas no início de journal-N.log: número, jogadas feitas e a posição
+ * </pre>
+ * Cada jogada leva o seu número na partida, então uma jogada que já está no instantâneo é ignorada
+ * ao repetir o diário. Um registro incompleto ou corrompido no fim do diário (queda durante a gravação) encerra a leitura.
+ */
+public class MatchJournal implements Closeable {
+
+	private static final byte CREATE = 1;
+	private static final byte MOVE = 2;
+	private static final byte CLOSE = 3;
+
+	private static final int SNAPSHOT_MAGIC = 0x43534E50; // "CSNP"
+	private static final int SNAPSHOT_RECORD = 8 + 4 + PositionCodec.SIZE;
+
+	private final Path directory;
+	private FileChannel channel;
+	private long segment;
+
+	// trava dos buffers e contadores; writeLock é de quem grava no arquivo, e é sempre pega antes de lock
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition appendedCondition = lock.newCondition();
+	private final Condition durableCondition = lock.newCondition();
+	private final ReentrantLock writeLock = new ReentrantLock();
+
+	private RecordBuffer pending = new RecordBuffer(1 << 16);
+	private RecordBuffer spare = new RecordBuffer(1 << 16);
+	private final RecordBuffer recordBytes = new RecordBuffer(128);
+	private final DataOutputStream record = recordBytes.data;
+	private final CRC32 crc = new CRC32();
+	private long appended;
+	private long durable;
+	private IOException failure;
+	private volatile boolean running = true;
+	private final Thread flusher;
+
+	/**
+	 * Buffer que expõe o próprio array, para o CRC e a gravação não copiarem os bytes,
+	 * e que leva o seu DataOutputStream, reaproveitado a cada registro.
+	 */
+	private static final class RecordBuffer extends ByteArrayOutputStream {
+		final DataOutputStream data = new DataOutputStream(this);
+
+		RecordBuffer(int size) {
+			super(size);
+		}
+
+		byte[] array() {
+			return buf;
+		}
+	}
+
+	/**
+	 * Uma partida recuperada: o número dela no servidor, a partida e quantas jogadas já foram feitas nela.
+	 */
+	static final class Recovered {
+		final long id;
+		final ChessMatch chessMatch;
+		int plies;
+
+		Recovered(long id, ChessMatch chessMatch, int plies) {
+			this.id = id;
+			this.chessMatch = chessMatch;
+			this.plies = plies;
+		}
+	}
+
+	private MatchJournal(Path directory, long segment) throws IOException {
+		this.directory = directory;
+		this.segment = segment;
+		channel = openSegment(segment);
+		flusher = Thread.ofPlatform().name("match-journal").daemon().start(this::flushLoop);
+	}
+
+	/**
+	 * Recupera as partidas gravadas no diretório e abre um diário novo, depois delas.
+	 * @param matches Recebe as partidas recuperadas, por número.
+	 */
+	static MatchJournal open(Path directory, Map<Long, Recovered> matches) throws IOException {
+		Files.createDirectories(directory);
+		long snapshot = -1;
+		long lastSegment = -1;
+		try (Stream<Path> files = Files.list(directory)) {
+			for (Path file : (Iterable<Path>)files::iterator) {
+				String name = file.getFileName().toString();
+				if (name.startsWith("snapshot-") && name.endsWith(".dat")) {
+					snapshot = Math.max(snapshot, sequence(name));
+				}
+				else if (name.startsWith("journal-") && name.endsWith(".log")) {
+					lastSegment = Math.max(lastSegment, sequence(name));
+				}
+			}
+		}
+
+		long first = 0;
+		if (snapshot >= 0) {
+			readSnapshot(directory.resolve(snapshotName(snapshot)), matches);
+			first = snapshot;
+		}
+		for (long i = first; i <= lastSegment; i++) {
+			Path file = directory.resolve(segmentName(i));
+			if (Files.exists(file)) {
+				replay(file, matches);
+			}
+		}
+		// o último arquivo pode terminar em um registro incompleto: os novos registros vão para um arquivo novo
+		return new MatchJournal(directory, Math.max(lastSegment, snapshot) + 1);
+	}
+
+	/**
+	 * Acrescenta a criação de uma partida. Veja {@link #awaitDurable(long)}.
+	 * @return O número do registro no diário.
+	 */
+	public long appendCreate(long matchId, String fen) {
+		lock.lock();
+		try {
+			beginRecord(CREATE, matchId);
+			record.writeUTF(fen);
+			return endRecord();
+		}
+		catch (IOException e) {
+			throw new ChessException("Journal record failed: " + e.getMessage());
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Acrescenta uma jogada, a de número "ply" na partida (a primeira é 1).
+	 * @return O número do registro no diário.
+	 */
+	public long appendMove(long matchId, int ply, int move) {
+		lock.lock();
+		try {
+			beginRecord(MOVE, matchId);
+			record.writeInt(ply);
+			record.writeInt(move);
+			return endRecord();
+		}
+		catch (IOException e) {
+			throw new ChessException("Journal record failed: " + e.getMessage());
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	public long appendClose(long matchId) {
+		lock.lock();
+		try {
+			beginRecord(CLOSE, matchId);
+			return endRecord();
+		}
+		catch (IOException e) {
+			throw new ChessException("Journal record failed: " + e.getMessage());
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Espera até o registro informado (e todos os anteriores) estar gravado em disco.
+	 * Deve ser chamado sem a trava da partida, para não segurá-la durante o fsync.
+	 */
+	public void awaitDurable(long sequence) throws IOException {
+		lock.lock();
+		try {
+			while (durable < sequence && failure == null) {
+				durableCondition.awaitUninterruptibly();
+			}
+			if (failure != null) {
+				throw failure;
+			}
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Primeira parte do instantâneo: começa um novo arquivo de diário. As partidas passadas a
+	 * {@link #finishCheckpoint} devem ser exatamente as abertas neste momento: quem chama garante que nenhuma
+	 * partida é criada ou encerrada entre as duas coisas (veja {@link GameServer#checkpoint()}), senão o
+	 * registro de criação ou de encerramento pode ficar no arquivo antigo, que é apagado.
+	 * @return O número do instantâneo, para {@link #finishCheckpoint}.
+	 */
+	long beginCheckpoint() throws IOException {
+		writeLock.lock();
+		try {
+			flush();
+			channel.close();
+			segment++;
+			channel = openSegment(segment);
+			return segment;
+		}
+		finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Segunda parte do instantâneo: grava as partidas e apaga os arquivos anteriores.
+	 * O diário continua aceitando registros durante a gravação.
+	 * @param open As partidas abertas quando {@link #beginCheckpoint()} foi chamado; cada uma é lida com a sua trava.
+	 */
+	void finishCheckpoint(long snapshot, List<HostedMatch> open) throws IOException {
+		// uma partida que recebeu jogadas depois da troca de arquivo é gravada com elas, e o número
+		// das jogadas evita que sejam repetidas na recuperação
+		ByteBuffer buffer = ByteBuffer.allocate(8 + open.size() * SNAPSHOT_RECORD);
+		buffer.putInt(SNAPSHOT_MAGIC);
+		buffer.putInt(open.size());
+		for (HostedMatch match : open) {
+			match.writeSnapshot(buffer);
+		}
+		buffer.flip();
+
+		Path temporary = directory.resolve(snapshotName(snapshot) + ".tmp");
+		try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (buffer.hasRemaining()) {
+				out.write(buffer);
+			}
+			out.force(true);
+		}
+		Files.move(temporary, directory.resolve(snapshotName(snapshot)), StandardCopyOption.ATOMIC_MOVE);
+		forceDirectory();
+
+		try (Stream<Path> files = Files.list(directory)) {
+			for (Path file : (Iterable<Path>)files::iterator) {
+				String name = file.getFileName().toString();
+				if ((name.startsWith("snapshot-") && name.endsWith(".dat") || name.startsWith("journal-") && name.endsWith(".log"))
+						&& sequence(name) < snapshot) {
+					Files.delete(file);
+				}
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		running = false;
+		lock.lock();
+		try {
+			appendedCondition.signalAll();
+		}
+		finally {
+			lock.unlock();
+		}
+		try {
+			flusher.join();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		writeLock.lock();
+		try {
+			flush();
+			channel.close();
+		}
+		finally {
+			writeLock.unlock();
+		}
+	}
+
+	private void beginRecord(byte type, long matchId) throws IOException {
+		if (!running) {
+			throw new ChessException("The journal is closed");
+		}
+		recordBytes.reset();
+		record.writeByte(type);
+		record.writeLong(matchId);
+	}
+
+	private long endRecord() throws IOException {
+		crc.reset();
+		crc.update(recordBytes.array(), 0, recordBytes.size());
+		pending.data.writeInt(recordBytes.size());
+		pending.data.writeInt((int)crc.getValue());
+		recordBytes.writeTo(pending);
+		appendedCondition.signal();
+		return ++appended;
+	}
+
+	/**
+	 * Grava os registros acumulados e faz o fsync. Chamado com writeLock.
+	 */
+	private void flush() throws IOException {
+		RecordBuffer batch;
+		long target;
+		lock.lock();
+		try {
+			batch = pending;
+			pending = spare;
+			spare = batch;
+			target = appended;
+		}
+		finally {
+			lock.unlock();
+		}
+		if (batch.size() > 0) {
+			ByteBuffer buffer = ByteBuffer.wrap(batch.array(), 0, batch.size());
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(false);
+			batch.reset();
+		}
+		lock.lock();
+		try {
+			durable = target;
+			durableCondition.signalAll();
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	private void flushLoop() {
+		while (running) {
+			lock.lock();
+			try {
+				while (running && appended == durable) {
+					appendedCondition.awaitUninterruptibly();
+				}
+			}
+			finally {
+				lock.unlock();
+			}
+			writeLock.lock();
+			try {
+				flush();
+			}
+			catch (IOException e) {
+				lock.lock();
+				try {
+					failure = e;
+					durableCondition.signalAll();
+				}
+				finally {
+					lock.unlock();
+				}
+				return;
+			}
+			finally {
+				writeLock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * O rename só é durável depois do fsync do diretório; antes disso uma queda pode deixar o diretório
+	 * sem o instantâneo novo e já sem os arquivos antigos. É feito quando possível: no Windows um diretório
+	 * não pode ser aberto como arquivo, e lá o rename fica por conta do próprio sistema de arquivos.
+	 */
+	private void forceDirectory() {
+		try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+			dir.force(true);
+		}
+		catch (IOException | UnsupportedOperationException e) {
+			// sem suporte na plataforma: segue sem o fsync do diretório
+		}
+	}
+
+	private FileChannel openSegment(long number) throws IOException {
+		return FileChannel.open(directory.resolve(segmentName(number)), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+	}
+
+	private static void readSnapshot(Path file, Map<Long, Recovered> matches) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+		try {
+			if (buffer.getInt() != SNAPSHOT_MAGIC) {
+				throw new IOException("Not a match snapshot: " + file);
+			}
+			int count = buffer.getInt();
+			for (int i = 0; i < count; i++) {
+				long id = buffer.getLong();
+				int plies = buffer.getInt();
+				matches.put(id, new Recovered(id, PositionCodec.decode(buffer), plies));
+			}
+		}
+		catch (BufferUnderflowException | ChessException e) {
+			throw new IOException("Corrupted match snapshot: " + file, e);
+		}
+	}
+
+	private static void replay(Path file, Map<Long, Recovered> matches) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+		CRC32 crc = new CRC32();
+		while (buffer.remaining() >= 8) {
+			int length = buffer.getInt();
+			int checksum = buffer.getInt();
+			if (length < 9 || length > buffer.remaining()) {
+				break;
+			}
+			crc.reset();
+			crc.update(buffer.array(), buffer.position(), length);
+			if ((int)crc.getValue() != checksum) {
+				break;
+			}
+			ByteBuffer body = buffer.slice(buffer.position(), length);
+			buffer.position(buffer.position() + length);
+
+			byte type = body.get();
+			long id = body.getLong();
+			if (type == CREATE) {
+				byte[] fen = new byte[body.getShort() & 0xFFFF];
+				body.get(fen);
+				matches.put(id, new Recovered(id, new ChessMatch(new String(fen, StandardCharsets.UTF_8)), 0));
+			}
+			else if (type == MOVE) {
+				int ply = body.getInt();
+				int move = body.getInt();
+				Recovered match = matches.get(id);
+				if (match != null && ply == match.plies + 1) {
+					match.chessMatch.performMove(move);
+					match.plies = ply;
+				}
+			}
+			else if (type == CLOSE) {
+				matches.remove(id);
+			}
+		}
+	}
+
+	private static long sequence(String name) {
+		return Long.parseLong(name.substring(name.indexOf('-') + 1, name.indexOf('.')));
+	}
+
+	private static String segmentName(long number) {
+		return String.format("journal-%08d.log", number);
+	}
+
+	private static String snapshotName(long number) {
+		return String.format("snapshot-%08d.dat", number);
+	}
+
+}